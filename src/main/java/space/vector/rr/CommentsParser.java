@@ -5,7 +5,6 @@ import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -42,7 +41,7 @@ public class CommentsParser {
     }
     
     public static Map<String, String> commentsMap(String input) {
-        HashMap<String, String> commentsMap = Maps.newHashMap();
+        Map<String, String> commentsMap = Maps.newLinkedHashMap();
         List<String> comments = comments(input);
         for (String comment : comments) {
             Optional<String> ruleName = ruleName(comment);
@@ -0,0 +1,147 @@
+package space.vector.rr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Static complexity report of all parser rules of the grammar, ranked by score.
+ *
+ */
+public class ComplexityReport {
+
+    private final Map<String, RuleComplexity> rules = new LinkedHashMap<>();
+
+    private boolean analyzed;
+
+    public void addAll(Map<String, RuleComplexity> rules) {
+        this.rules.putAll(rules);
+        this.analyzed = false;
+    }
+
+    public RuleComplexity get(String ruleName) {
+        analyze();
+        return rules.get(ruleName);
+    }
+
+    /**
+     * get the rules with the highest score.
+     *
+     * @param limit max number of rules
+     * @return rules ordered by descending score
+     */
+    public List<RuleComplexity> worst(int limit) {
+        analyze();
+        return rules.values().stream()
+                .filter(rule -> rule.getScore() > 0)
+                .sorted(Comparator.comparingInt(RuleComplexity::getScore).reversed().thenComparing(RuleComplexity::getName))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public String toJson() {
+        List<Map<String, Object>> report = worst(rules.size()).stream().map(RuleComplexity::toMap).collect(Collectors.toList());
+        return JsonWriter.toJson(report);
+    }
+
+    private void analyze() {
+        if (analyzed) {
+            return;
+        }
+        for (List<String> cycle : leftRecursionCycles()) {
+            for (String ruleName : cycle) {
+                rules.get(ruleName).setLeftRecursion(cycle);
+            }
+        }
+        rules.values().forEach(RuleComplexity::computeScore);
+        analyzed = true;
+    }
+
+    /**
+     * strongly connected components of the left corner graph (Tarjan), keeping those forming a cycle.
+     * The search is iterative, with an explicit stack of rules being visited, so long chains of rules
+     * in generated grammars do not overflow the thread stack.
+     */
+    private List<List<String>> leftRecursionCycles() {
+        List<List<String>> cycles = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        Deque<Visit> visits = new ArrayDeque<>();
+        for (String ruleName : rules.keySet()) {
+            if (index.containsKey(ruleName)) {
+                continue;
+            }
+            visits.push(visit(ruleName, index, lowLink, stack, onStack));
+            while (!visits.isEmpty()) {
+                Visit visit = visits.peek();
+                if (visit.next < visit.corners.size()) {
+                    String corner = visit.corners.get(visit.next++);
+                    if (!index.containsKey(corner)) {
+                        visits.push(visit(corner, index, lowLink, stack, onStack));
+                    } else if (onStack.contains(corner)) {
+                        lowLink.put(visit.ruleName, Math.min(lowLink.get(visit.ruleName), index.get(corner)));
+                    }
+                    continue;
+                }
+                visits.pop();
+                if (lowLink.get(visit.ruleName).equals(index.get(visit.ruleName))) {
+                    List<String> component = new ArrayList<>();
+                    String member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(visit.ruleName));
+                    if (component.size() > 1 || visit.corners.contains(visit.ruleName)) {
+                        Collections.reverse(component);
+                        cycles.add(Collections.unmodifiableList(component));
+                    }
+                }
+                if (!visits.isEmpty()) {
+                    String parent = visits.peek().ruleName;
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(visit.ruleName)));
+                }
+            }
+        }
+        return cycles;
+    }
+
+    private Visit visit(String ruleName, Map<String, Integer> index, Map<String, Integer> lowLink,
+                        Deque<String> stack, Set<String> onStack) {
+        index.put(ruleName, index.size());
+        lowLink.put(ruleName, index.get(ruleName));
+        stack.push(ruleName);
+        onStack.add(ruleName);
+        return new Visit(ruleName, corners(ruleName));
+    }
+
+    private List<String> corners(String ruleName) {
+        return rules.get(ruleName).getLeftCorners().stream().filter(rules::containsKey).collect(Collectors.toList());
+    }
+
+    /**
+     * rule being visited by the search, with the next of its left corners to follow.
+     */
+    private static final class Visit {
+
+        private final String ruleName;
+        private final List<String> corners;
+        private int next;
+
+        Visit(String ruleName, List<String> corners) {
+            this.ruleName = ruleName;
+            this.corners = corners;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package space.vector.rr;
+
+import lombok.Getter;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.Trees;
+import space.vector.rr.ANTLRv4Parser.AltListContext;
+import space.vector.rr.ANTLRv4Parser.AlternativeContext;
+import space.vector.rr.ANTLRv4Parser.AtomContext;
+import space.vector.rr.ANTLRv4Parser.BlockContext;
+import space.vector.rr.ANTLRv4Parser.EbnfContext;
+import space.vector.rr.ANTLRv4Parser.EbnfSuffixContext;
+import space.vector.rr.ANTLRv4Parser.ElementContext;
+import space.vector.rr.ANTLRv4Parser.LabeledAltContext;
+import space.vector.rr.ANTLRv4Parser.LexerRuleContext;
+import space.vector.rr.ANTLRv4Parser.ParserRuleSpecContext;
+import space.vector.rr.ANTLRv4Parser.RuleAltListContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Complexity visitor to collect, for each parser rule, the structure that drives the cost of
+ * ANTLR adaptive prediction: alternatives, nesting depth, loops, left corners and common prefixes.
+ */
+public class ComplexityVisitor extends ANTLRv4ParserBaseVisitor<Void> {
+
+    /**
+     * alternatives must share at least this many leading elements to be reported.
+     */
+    private static final int MIN_COMMON_PREFIX = 2;
+
+    @Getter
+    private final Map<String, RuleComplexity> rules = new LinkedHashMap<>();
+
+    private RuleComplexity current;
+
+    private int depth;
+
+    @Override
+    public Void visitParserRuleSpec(ParserRuleSpecContext ctx) {
+        current = new RuleComplexity(ctx.RULE_REF().getText());
+        rules.put(current.getName(), current);
+        depth = 0;
+        List<AlternativeContext> alternatives = alternatives(ctx.ruleBlock().ruleAltList());
+        current.setAlternatives(alternatives.size());
+        for (AlternativeContext alternative : alternatives) {
+            leftCorners(alternative, current.getLeftCorners());
+        }
+        visitChildren(ctx);
+        current = null;
+        return null;
+    }
+
+    @Override
+    public Void visitLexerRule(LexerRuleContext ctx) {
+        return null;
+    }
+
+    @Override
+    public Void visitRuleAltList(RuleAltListContext ctx) {
+        alternatives(alternatives(ctx));
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitAltList(AltListContext ctx) {
+        alternatives(ctx.alternative());
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitBlock(BlockContext ctx) {
+        depth++;
+        current.setMaxDepth(Math.max(current.getMaxDepth(), depth));
+        visitChildren(ctx);
+        depth--;
+        return null;
+    }
+
+    @Override
+    public Void visitElement(ElementContext ctx) {
+        suffix(ctx.ebnfSuffix(), ctx);
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitEbnf(EbnfContext ctx) {
+        if (ctx.blockSuffix() != null) {
+            suffix(ctx.blockSuffix().ebnfSuffix(), ctx);
+        }
+        return visitChildren(ctx);
+    }
+
+    private void suffix(EbnfSuffixContext suffix, ParseTree body) {
+        if (suffix == null || current == null) {
+            return;
+        }
+        current.setDecisions(current.getDecisions() + 1);
+        if (suffix.STAR() != null || suffix.PLUS() != null) {
+            current.setClosures(current.getClosures() + 1);
+            int size = Trees.findAllRuleNodes(body, ANTLRv4Parser.RULE_atom).size();
+            current.setMaxClosureSize(Math.max(current.getMaxClosureSize(), size));
+        }
+    }
+
+    private void alternatives(List<AlternativeContext> alternatives) {
+        if (current == null) {
+            return;
+        }
+        if (alternatives.size() > 1) {
+            current.setDecisions(current.getDecisions() + 1);
+        }
+        Map<String, List<List<String>>> groups = new LinkedHashMap<>();
+        for (AlternativeContext alternative : alternatives) {
+            List<String> elements = elements(alternative);
+            if (elements.size() >= MIN_COMMON_PREFIX) {
+                groups.computeIfAbsent(elements.get(0), key -> new ArrayList<>()).add(elements);
+            }
+        }
+        for (List<List<String>> group : groups.values()) {
+            if (group.size() > 1) {
+                commonPrefix(group);
+            }
+        }
+    }
+
+    /**
+     * record the longest prefix shared by alternatives starting with the same element, and how many
+     * alternatives share it. Sorting the group puts the alternatives sharing the longest prefix next to
+     * each other, so the group is scanned once instead of comparing every pair.
+     */
+    private void commonPrefix(List<List<String>> group) {
+        group.sort(ComplexityVisitor::compare);
+        int longest = 0;
+        int first = 0;
+        for (int i = 1; i < group.size(); i++) {
+            int length = commonPrefixLength(group.get(i - 1), group.get(i));
+            if (length > longest) {
+                longest = length;
+                first = i - 1;
+            }
+        }
+        if (longest < MIN_COMMON_PREFIX) {
+            return;
+        }
+        int last = first + 1;
+        while (last + 1 < group.size() && commonPrefixLength(group.get(last), group.get(last + 1)) >= longest) {
+            last++;
+        }
+        current.addCommonPrefix(group.get(first).subList(0, longest), last - first + 1);
+    }
+
+    private static List<AlternativeContext> alternatives(RuleAltListContext ctx) {
+        List<AlternativeContext> alternatives = new ArrayList<>();
+        for (LabeledAltContext labeledAlt : ctx.labeledAlt()) {
+            alternatives.add(labeledAlt.alternative());
+        }
+        return alternatives;
+    }
+
+    private static List<String> elements(AlternativeContext alternative) {
+        if (alternative.elements() == null) {
+            return Collections.emptyList();
+        }
+        List<String> elements = new ArrayList<>();
+        for (ElementContext element : alternative.elements().element()) {
+            elements.add(element.getText());
+        }
+        return elements;
+    }
+
+    private static int commonPrefixLength(List<String> first, List<String> second) {
+        int length = 0;
+        while (length < first.size() && length < second.size() && first.get(length).equals(second.get(length))) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int compare(List<String> first, List<String> second) {
+        int length = commonPrefixLength(first, second);
+        if (length < first.size() && length < second.size()) {
+            return first.get(length).compareTo(second.get(length));
+        }
+        return Integer.compare(first.size(), second.size());
+    }
+
+    /**
+     * collect the rules that may be referenced first in the alternative.
+     *
+     * @return `true` iff the whole alternative may match nothing.
+     */
+    private static boolean leftCorners(AlternativeContext alternative, Set<String> corners) {
+        if (alternative.elements() == null) {
+            return true;
+        }
+        for (ElementContext element : alternative.elements().element()) {
+            if (!leftCorners(element, corners)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean leftCorners(ElementContext element, Set<String> corners) {
+        boolean optional = element.ebnfSuffix() != null && element.ebnfSuffix().PLUS() == null;
+        if (element.labeledElement() != null) {
+            if (element.labeledElement().atom() != null) {
+                return leftCorners(element.labeledElement().atom(), corners) || optional;
+            }
+            return leftCorners(element.labeledElement().block(), corners) || optional;
+        } else if (element.atom() != null) {
+            return leftCorners(element.atom(), corners) || optional;
+        } else if (element.ebnf() != null) {
+            EbnfContext ebnf = element.ebnf();
+            boolean blockOptional = ebnf.blockSuffix() != null && ebnf.blockSuffix().ebnfSuffix().PLUS() == null;
+            return leftCorners(ebnf.block(), corners) || blockOptional;
+        }
+        // actions and predicates match nothing
+        return true;
+    }
+
+    private static boolean leftCorners(AtomContext atom, Set<String> corners) {
+        if (atom.ruleref() != null) {
+            corners.add(atom.ruleref().RULE_REF().getText());
+        }
+        return false;
+    }
+
+    private static boolean leftCorners(BlockContext block, Set<String> corners) {
+        boolean nullable = false;
+        for (AlternativeContext alternative : block.altList().alternative()) {
+            nullable |= leftCorners(alternative, corners);
+        }
+        return nullable;
+    }
+}
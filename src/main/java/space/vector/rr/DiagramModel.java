@@ -0,0 +1,171 @@
+package space.vector.rr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the diagram DSL built by {@link RailRoadRuleVisitor} into a json model, so the diagrams can be
+ * rendered in the browser without evaluating any script text.
+ * <p>
+ * Every call {@code Name(a, b)} becomes the array {@code ["Name", a, b]}, string arguments are decoded
+ * the way JavaScript decodes single quoted literals and numbers are kept as numbers.
+ * </p>
+ */
+public final class DiagramModel {
+
+    private static final String TO_STRING = ".toString()";
+
+    private final String dsl;
+
+    private int position;
+
+    private DiagramModel(String dsl) {
+        this.dsl = dsl.endsWith(TO_STRING) ? dsl.substring(0, dsl.length() - TO_STRING.length()) : dsl;
+    }
+
+    /**
+     * convert the diagram DSL of a rule into its json model.
+     *
+     * @param dsl diagram DSL
+     * @return json model
+     */
+    public static String toJson(String dsl) {
+        DiagramModel model = new DiagramModel(dsl);
+        Object value = model.value();
+        model.skipSpaces();
+        if (model.position != model.dsl.length()) {
+            throw model.error("unexpected trailing input");
+        }
+        return JsonWriter.toJson(value);
+    }
+
+    private Object value() {
+        skipSpaces();
+        if (position >= dsl.length()) {
+            throw error("unexpected end of input");
+        }
+        char c = dsl.charAt(position);
+        if (c == '\'') {
+            return string();
+        } else if (Character.isDigit(c) || c == '-') {
+            int start = position++;
+            while (position < dsl.length() && Character.isDigit(dsl.charAt(position))) {
+                position++;
+            }
+            return Integer.parseInt(dsl.substring(start, position));
+        } else if (Character.isJavaIdentifierStart(c)) {
+            return call();
+        }
+        throw error("unexpected character '" + c + "'");
+    }
+
+    private List<Object> call() {
+        int start = position;
+        while (position < dsl.length() && Character.isJavaIdentifierPart(dsl.charAt(position))) {
+            position++;
+        }
+        List<Object> call = new ArrayList<>();
+        call.add(dsl.substring(start, position));
+        expect('(');
+        skipSpaces();
+        if (peek() != ')') {
+            call.add(value());
+            skipSpaces();
+            while (peek() == ',') {
+                position++;
+                call.add(value());
+                skipSpaces();
+            }
+        }
+        expect(')');
+        return call;
+    }
+
+    private String string() {
+        StringBuilder builder = new StringBuilder();
+        position++;
+        while (position < dsl.length()) {
+            char c = dsl.charAt(position++);
+            if (c == '\'') {
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (position >= dsl.length()) {
+                break;
+            }
+            char escaped = dsl.charAt(position++);
+            switch (escaped) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'v':
+                    builder.append('\u000B');
+                    break;
+                case '0':
+                    builder.append('\0');
+                    break;
+                case 'x':
+                    builder.append(hex(2));
+                    break;
+                case 'u':
+                    builder.append(hex(4));
+                    break;
+                case '\n':
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private char hex(int length) {
+        if (position + length > dsl.length()) {
+            throw error("invalid escape");
+        }
+        try {
+            char c = (char) Integer.parseInt(dsl.substring(position, position + length), 16);
+            position += length;
+            return c;
+        } catch (NumberFormatException e) {
+            throw error("invalid escape");
+        }
+    }
+
+    private char peek() {
+        return position < dsl.length() ? dsl.charAt(position) : 0;
+    }
+
+    private void expect(char c) {
+        skipSpaces();
+        if (peek() != c) {
+            throw error("expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void skipSpaces() {
+        while (position < dsl.length() && Character.isWhitespace(dsl.charAt(position))) {
+            position++;
+        }
+    }
+
+    private RailroadGeneratorException error(String message) {
+        return new RailroadGeneratorException("invalid diagram DSL at " + position + ": " + message);
+    }
+}
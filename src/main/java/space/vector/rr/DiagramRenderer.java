@@ -0,0 +1,203 @@
+package space.vector.rr;
+
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.Source;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diagram renderer evaluating the rule DSL with the railroad diagram script.
+ * <p>
+ * Each renderer owns its own polyglot context and must be used by a single thread at a time. All the
+ * renderers share one engine, so the railroad diagram script is only parsed once per JVM.
+ * </p>
+ * <p>
+ * The evaluation of each rule can be bounded by a statement limit and a wall clock timeout. A rule
+ * exceeding them, or nested deeper than the script stack allows, fails with a {@link RenderLimitException}
+ * and the following rules can still be rendered: after a statement limit or a timeout the renderer starts
+ * over with a fresh context, created and warmed up on the next rule.
+ * </p>
+ */
+@Slf4j
+public class DiagramRenderer implements AutoCloseable {
+
+    private static final Engine ENGINE = Engine.newBuilder().option("engine.WarnInterpreterOnly", "false").build();
+    private static final Source RAILROAD_SCRIPT = Source.newBuilder("js",
+            RailroadGenerator.inputAsString(DiagramRenderer.class.getResourceAsStream("/railroad-diagram.js")), "railroad-diagram.js").buildLiteral();
+    private static final String RAILROAD_CSS = RailroadGenerator.inputAsString(DiagramRenderer.class.getResourceAsStream("/railroad-diagram.css"));
+    /**
+     * trivial diagram using every element, rendered a few times by every new context so the per rule timeout
+     * does not count the cold start of the interpreter.
+     */
+    private static final Source WARM_UP = Source.create("js", "Diagram(Sequence(Terminal('a'), NonTerminal('b'), Comment('c')), Choice(0, Skip(), Optional(Terminal('d'))), "
+            + "OneOrMore(Terminal('e'), Terminal(',')), ZeroOrMore(NonTerminal('f')), TerminalGrid(2, Terminal('g'), Terminal('h'), Terminal('i'))).toString()");
+    private static final int WARM_UP_RUNS = 3;
+    private static final String STACK_OVERFLOW = "Maximum call stack size exceeded";
+    static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rr-render-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ResourceLimits limits;
+    private final Duration timeout;
+    private volatile Context context;
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+
+    public DiagramRenderer() {
+        this(0, null);
+    }
+
+    /**
+     * create a diagram renderer with per rule limits.
+     *
+     * @param statementLimit max number of script statements evaluated per rule, 0 for no limit
+     * @param timeout        max wall clock time per rule, null for no limit
+     */
+    public DiagramRenderer(long statementLimit, Duration timeout) {
+        this.limits = statementLimit > 0 ? ResourceLimits.newBuilder().statementLimit(statementLimit, null).build() : null;
+        this.timeout = timeout;
+    }
+
+    /**
+     * create the context on first use, so a renderer cancelled before rendering anything never evaluates the script.
+     */
+    private Context context() {
+        Context current = context;
+        return current != null ? current : newContext();
+    }
+
+    private Context newContext() {
+        Context.Builder builder = Context.newBuilder("js").engine(ENGINE);
+        if (limits != null) {
+            builder.resourceLimits(limits);
+        }
+        Context newContext = builder.build();
+        // published before evaluating the script, so cancel() can stop the evaluation
+        context = newContext;
+        try {
+            if (cancelled) {
+                throw new IllegalStateException("renderer is cancelled.");
+            }
+            newContext.eval(RAILROAD_SCRIPT);
+            for (int i = 0; i < WARM_UP_RUNS; i++) {
+                newContext.resetLimits();
+                newContext.eval(WARM_UP);
+            }
+            newContext.resetLimits();
+        } catch (PolyglotException | IllegalStateException e) {
+            newContext.close(true);
+            if (cancelled) {
+                throw new RailroadGeneratorException("renderer is cancelled.", e);
+            }
+            throw new RailroadGeneratorException("could not evaluate railroad diagram script.", e);
+        }
+        return newContext;
+    }
+
+    /**
+     * render the diagram DSL of a rule into a standalone svg.
+     *
+     * @param ruleName rule name, for error reporting
+     * @param dsl      diagram DSL built by {@link RailRoadRuleVisitor}
+     * @return svg
+     * @throws RenderLimitException if the rule exceeds the statement limit, the timeout or the script stack depth
+     */
+    public String render(String ruleName, String dsl) {
+        if (cancelled) {
+            throw new RailroadGeneratorException("renderer is cancelled.");
+        }
+        Context current = context();
+        ScheduledFuture<?> watchdog = null;
+        if (timeout != null) {
+            timedOut = false;
+            watchdog = WATCHDOG.schedule(() -> {
+                timedOut = true;
+                current.close(true);
+            }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        String svg;
+        try {
+            svg = current.eval("js", dsl).asString();
+            current.resetLimits();
+        } catch (PolyglotException | IllegalStateException e) {
+            if (!cancelled && !timedOut && isStackOverflow(e)) {
+                // the context is still usable, only this rule is nested too deep for the script
+                log.warn("rule {} exceeds the stack depth", ruleName);
+                current.resetLimits();
+                throw new RenderLimitException(ruleName, "stack depth", e);
+            }
+            if (!cancelled && (timedOut || e instanceof PolyglotException && ((PolyglotException) e).isResourceExhausted())) {
+                String limit = timedOut ? "timeout of " + timeout.toMillis() + " ms" : "statement limit";
+                log.warn("rule {} exceeds the {}", ruleName, limit);
+                current.close(true);
+                context = null;
+                throw new RenderLimitException(ruleName, limit, e);
+            }
+            log.error("get svg of rule {} fail", ruleName);
+            throw new RailroadGeneratorException("get svg of rule " + ruleName + " fail.", e);
+        } finally {
+            if (watchdog != null && !watchdog.cancel(false)) {
+                // the watchdog fired after the evaluation completed, start over with a fresh context
+                try {
+                    watchdog.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException | CancellationException e) {
+                    log.debug("render watchdog fail", e);
+                }
+                if (context == current) {
+                    context = null;
+                }
+            }
+        }
+        svg = svg.replaceFirst("<svg ", "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" ");
+        svg = svg.replaceFirst("<g ", "<style type=\"text/css\">" + RAILROAD_CSS + "</style>\n<g ");
+        return svg;
+    }
+
+    private static boolean isStackOverflow(RuntimeException e) {
+        return e instanceof PolyglotException && ((PolyglotException) e).isGuestException()
+                && e.getMessage() != null && e.getMessage().contains(STACK_OVERFLOW);
+    }
+
+    /**
+     * svg standing for a diagram that could not be rendered, built without evaluating any script.
+     *
+     * @param message message shown in place of the diagram
+     * @return svg
+     */
+    public static String placeholder(String message) {
+        int width = message.length() * 7 + 40;
+        return "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" class=\"railroad-diagram\" width=\""
+                + width + "\" height=\"42\" viewBox=\"0 0 " + width + " 42\">\n<style type=\"text/css\">" + RAILROAD_CSS + "</style>\n"
+                + "<text x=\"" + width / 2 + "\" y=\"26\" class=\"comment\">\n" + message + "</text>\n</svg>\n";
+    }
+
+    /**
+     * stop the evaluation running in the renderer, if any, from another thread. The renderer can not be used afterwards.
+     */
+    public void cancel() {
+        cancelled = true;
+        close();
+    }
+
+    @Override
+    public void close() {
+        Context current = context;
+        if (current != null) {
+            current.close(true);
+        }
+    }
+}
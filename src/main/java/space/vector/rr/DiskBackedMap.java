@@ -0,0 +1,125 @@
+package space.vector.rr;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * String map keeping only its keys in memory, values are appended to a temporary file
+ * and read back on demand. Used by the low memory mode to hold rule definitions and comments.
+ *
+ */
+@Slf4j
+public class DiskBackedMap extends AbstractMap<String, String> implements Closeable {
+
+    private final File file;
+    private final RandomAccessFile store;
+    private final Map<String, long[]> offsets;
+
+    public DiskBackedMap(String prefix) {
+        try {
+            this.file = File.createTempFile(prefix, ".store");
+            this.file.deleteOnExit();
+            this.store = new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            throw new RailroadGeneratorException("create temporary store fail.", e);
+        }
+        this.offsets = new LinkedHashMap<>();
+    }
+
+    @Override
+    public String put(String key, String value) {
+        String previous = get(key);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        try {
+            long offset = store.length();
+            store.seek(offset);
+            store.write(bytes);
+            offsets.put(key, new long[]{offset, bytes.length});
+        } catch (IOException e) {
+            throw new RailroadGeneratorException("write temporary store fail.", e);
+        }
+        return previous;
+    }
+
+    @Override
+    public String get(Object key) {
+        long[] position = offsets.get(key);
+        if (position == null) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) position[1]];
+        try {
+            store.seek(position[0]);
+            store.readFully(bytes);
+        } catch (IOException e) {
+            throw new RailroadGeneratorException("read temporary store fail.", e);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return offsets.containsKey(key);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return offsets.keySet();
+    }
+
+    @Override
+    public int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Iterator<String> keys = offsets.keySet().iterator();
+                return new Iterator<Entry<String, String>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        String key = keys.next();
+                        return new SimpleImmutableEntry<>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return offsets.size();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        offsets.clear();
+        try {
+            store.close();
+        } catch (IOException e) {
+            log.warn("close temporary store fail,Exception:{}", e.getMessage());
+        }
+        if (!file.delete()) {
+            log.warn("delete temporary store {} fail", file);
+        }
+    }
+}
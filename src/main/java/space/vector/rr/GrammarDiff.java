@@ -0,0 +1,133 @@
+package space.vector.rr;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structural diff between two versions of a grammar, rendering only the rules that changed.
+ * <p>
+ * Rules are compared on their diagram DSL, so formatting, labels and action code do not count as a change.
+ * The rules referenced by an added or changed rule are included, unchanged, as context.
+ * </p>
+ */
+@Slf4j
+public class GrammarDiff {
+    
+    private static final String DIFF_TEMPLATE = RailroadGenerator.inputAsString(GrammarDiff.class.getResourceAsStream("/diff-template.html"));
+    
+    /**
+     * Status of a rule in the diff.
+     */
+    public enum Status {
+        ADDED, REMOVED, CHANGED, CONTEXT
+    }
+    
+    private final RailroadGenerator base;
+    
+    private final RailroadGenerator head;
+    
+    /**
+     * rules of the diff, head source order first then the removed rules in base source order.
+     */
+    @Getter
+    private final Map<String, Status> rules = new LinkedHashMap<>();
+    
+    public GrammarDiff(RailroadGenerator base, RailroadGenerator head) {
+        this.base = base;
+        this.head = head;
+        compare();
+    }
+    
+    private void compare() {
+        for (String ruleName : head.ruleNames()) {
+            String baseDefinition = base.ruleDefinition(ruleName);
+            if (baseDefinition == null) {
+                rules.put(ruleName, Status.ADDED);
+            } else if (!baseDefinition.equals(head.ruleDefinition(ruleName))) {
+                rules.put(ruleName, Status.CHANGED);
+            }
+        }
+        for (String ruleName : base.ruleNames()) {
+            if (head.ruleDefinition(ruleName) == null) {
+                rules.put(ruleName, Status.REMOVED);
+            }
+        }
+        Map<String, Status> context = new LinkedHashMap<>();
+        rules.forEach((ruleName, status) -> {
+            Set<String> children = head.getRulesRelation().get(ruleName);
+            if (status == Status.REMOVED || children == null) {
+                return;
+            }
+            for (String child : children) {
+                if (!rules.containsKey(child) && head.ruleDefinition(child) != null) {
+                    context.put(child, Status.CONTEXT);
+                }
+            }
+        });
+        for (String ruleName : head.ruleNames()) {
+            if (context.containsKey(ruleName)) {
+                rules.put(ruleName, Status.CONTEXT);
+            }
+        }
+    }
+    
+    public long count(Status status) {
+        return rules.values().stream().filter(status::equals).count();
+    }
+    
+    public String summary() {
+        return String.format("%d added, %d removed, %d changed, %d context", count(Status.ADDED), count(Status.REMOVED),
+                count(Status.CHANGED), count(Status.CONTEXT));
+    }
+    
+    /**
+     * Creates an html page with the base and head diagrams of the rules of the diff side by side.
+     * Only the rules of the diff are linked, the others have no row to point to.
+     *
+     * @param dir
+     *          output dir
+     * @param fileName
+     *          output file name
+     * @param statementLimit
+     *          max number of script statements evaluated per rule, 0 for no limit
+     * @param timeout
+     *          max wall clock time per rule, null for no limit
+     *
+     * @return`true` iff the creation of the html page was successful.
+     */
+    public boolean createHtml(String dir, String fileName, long statementLimit, Duration timeout) {
+        String template = DIFF_TEMPLATE.replace("${summary}", summary());
+        int rowsAt = template.indexOf("${rows}");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir + "/" + fileName)), StandardCharsets.UTF_8));
+             DiagramRenderer renderer = new DiagramRenderer(statementLimit, timeout)) {
+            out.write(template.substring(0, rowsAt));
+            for (Map.Entry<String, Status> rule : rules.entrySet()) {
+                String ruleName = rule.getKey();
+                Status status = rule.getValue();
+                String baseSvg = status == Status.REMOVED || status == Status.CHANGED
+                        ? base.renderRule(fileName, ruleName, renderer, rules::containsKey).getSvg() : "";
+                String headSvg = status != Status.REMOVED ? head.renderRule(fileName, ruleName, renderer, rules::containsKey).getSvg() : "";
+                String statusName = status.name().toLowerCase();
+                out.write("<tr><td id=\"" + fileName + "_" + ruleName + "\"><h4>" + ruleName + "</h4><span class=\"" + statusName + "\">"
+                        + statusName + "</span></td><td>" + baseSvg + "</td><td>" + headSvg + "</td></tr>");
+            }
+            out.write(template.substring(rowsAt + "${rows}".length()));
+            return true;
+        } catch (IOException e) {
+            log.error("create diff html fail,Exception:{}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package space.vector.rr;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Minimal json writer for the sidecar files generated next to the html page. The output is also a valid
+ * JavaScript expression, so it can be embedded in the script sidecars loaded by the page.
+ * Supports maps, collections, strings, numbers, booleans and null.
+ *
+ */
+public final class JsonWriter {
+
+    private JsonWriter() {
+    }
+
+    /**
+     * write the value as a compact json document.
+     *
+     * @param value map, collection, string, number, boolean or null
+     * @return json text
+     */
+    public static String toJson(Object value) {
+        StringBuilder builder = new StringBuilder();
+        write(builder, value);
+        return builder.toString();
+    }
+
+    private static void write(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof Map) {
+            builder.append('{');
+            Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) value).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<?, ?> entry = it.next();
+                writeString(builder, String.valueOf(entry.getKey()));
+                builder.append(':');
+                write(builder, entry.getValue());
+                if (it.hasNext()) {
+                    builder.append(',');
+                }
+            }
+            builder.append('}');
+        } else if (value instanceof Collection) {
+            builder.append('[');
+            Iterator<?> it = ((Collection<?>) value).iterator();
+            while (it.hasNext()) {
+                write(builder, it.next());
+                if (it.hasNext()) {
+                    builder.append(',');
+                }
+            }
+            builder.append(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value);
+        } else {
+            writeString(builder, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder builder, String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '<':
+                    builder.append("\\u003c");
+                    break;
+                case '\u2028':
+                    builder.append("\\u2028");
+                    break;
+                case '\u2029':
+                    builder.append("\\u2029");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,18 @@
+package space.vector.rr;
+
+/**
+ * How the diagrams are shipped in the generated page.
+ *
+ */
+public enum OutputMode {
+    
+    /**
+     * diagrams pre-rendered as inline svg.
+     */
+    SVG,
+    
+    /**
+     * only the json diagram model is written, the diagrams are rendered in the browser as they scroll into view.
+     */
+    CLIENT
+}
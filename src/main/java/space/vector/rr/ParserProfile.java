@@ -0,0 +1,161 @@
+package space.vector.rr;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runtime parser profile recorded with ANTLR {@code ParseInfo}, aggregated per rule.
+ * <p>
+ * The profile is a csv file with a header line naming the columns, one line per decision. Only the
+ * {@code rule} column is required, the others are the fields of {@code DecisionInfo}:
+ * {@code decision, invocations, timeInPrediction, SLL_TotalLook, SLL_MaxLook, LL_TotalLook, LL_MaxLook,
+ * LL_Fallback, ambiguities, errors}. Ambiguities and errors are counts.
+ * </p>
+ */
+public class ParserProfile {
+
+    private final Map<String, RuleProfile> rules = new LinkedHashMap<>();
+
+    @Getter
+    private long maxCost;
+
+    /**
+     * cost metric of the whole profile: time spent in prediction when any decision recorded it,
+     * total SLL and LL lookahead otherwise, so all the rules are ranked on the same scale.
+     */
+    @Getter
+    private boolean timeRecorded;
+
+    /**
+     * read a profile file.
+     *
+     * @param profileFile csv profile file
+     * @return profile aggregated per rule
+     * @throws IOException
+     */
+    public static ParserProfile read(File profileFile) throws IOException {
+        ParserProfile profile = new ParserProfile();
+        try (BufferedReader reader = Files.newBufferedReader(profileFile.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> cells = Arrays.asList(line.split("\\s*,\\s*"));
+                if (columns == null) {
+                    columns = new HashMap<>();
+                    for (int i = 0; i < cells.size(); i++) {
+                        columns.put(cells.get(i).trim(), i);
+                    }
+                    if (!columns.containsKey("rule")) {
+                        throw new RailroadGeneratorException("profile " + profileFile + " has no rule column.");
+                    }
+                    continue;
+                }
+                try {
+                    profile.add(cells, columns);
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    throw new RailroadGeneratorException("invalid profile line " + lineNumber + " in " + profileFile, e);
+                }
+            }
+        }
+        for (RuleProfile rule : profile.rules.values()) {
+            profile.timeRecorded |= rule.timeInPrediction > 0;
+        }
+        for (RuleProfile rule : profile.rules.values()) {
+            profile.maxCost = Math.max(profile.maxCost, profile.cost(rule));
+        }
+        return profile;
+    }
+
+    public RuleProfile get(String ruleName) {
+        return rules.get(ruleName);
+    }
+
+    /**
+     * relative cost of the rule against the most expensive rule of the profile.
+     *
+     * @param ruleName rule name
+     * @return heat between 0 and 1, 0 if the rule is not profiled
+     */
+    public double heat(String ruleName) {
+        RuleProfile rule = rules.get(ruleName);
+        if (rule == null || maxCost == 0) {
+            return 0;
+        }
+        return (double) cost(rule) / maxCost;
+    }
+
+    /**
+     * cost of the rule, in nanoseconds of prediction when the profile recorded time, in lookahead tokens otherwise.
+     */
+    public long cost(RuleProfile rule) {
+        return timeRecorded ? rule.timeInPrediction : rule.sllTotalLook + rule.llTotalLook;
+    }
+
+    private void add(List<String> cells, Map<String, Integer> columns) {
+        RuleProfile rule = rules.computeIfAbsent(cells.get(columns.get("rule")).trim(), RuleProfile::new);
+        rule.decisions++;
+        rule.invocations += value(cells, columns, "invocations");
+        rule.timeInPrediction += value(cells, columns, "timeInPrediction");
+        rule.sllTotalLook += value(cells, columns, "SLL_TotalLook");
+        rule.sllMaxLook = Math.max(rule.sllMaxLook, value(cells, columns, "SLL_MaxLook"));
+        rule.llTotalLook += value(cells, columns, "LL_TotalLook");
+        rule.llMaxLook = Math.max(rule.llMaxLook, value(cells, columns, "LL_MaxLook"));
+        rule.llFallback += value(cells, columns, "LL_Fallback");
+        rule.ambiguities += value(cells, columns, "ambiguities");
+        rule.errors += value(cells, columns, "errors");
+    }
+
+    private static long value(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= cells.size() || cells.get(index).isEmpty()) {
+            return 0;
+        }
+        return Long.parseLong(cells.get(index).trim());
+    }
+
+    /**
+     * Decision statistics of all the decisions of a rule.
+     */
+    @Getter
+    public static class RuleProfile {
+
+        private final String name;
+        private int decisions;
+        private long invocations;
+        private long timeInPrediction;
+        private long sllTotalLook;
+        private long sllMaxLook;
+        private long llTotalLook;
+        private long llMaxLook;
+        private long llFallback;
+        private long ambiguities;
+        private long errors;
+
+        RuleProfile(String name) {
+            this.name = name;
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT, "%d decisions, %d invocations, %.3f ms in prediction, SLL lookahead %d (max %d), "
+                            + "LL lookahead %d (max %d), %d LL fallbacks, %d ambiguities, %d errors",
+                    decisions, invocations, timeInPrediction / 1e6, sllTotalLook, sllMaxLook,
+                    llTotalLook, llMaxLook, llFallback, ambiguities, errors);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package space.vector.rr;
 
 import lombok.Getter;
+import lombok.Setter;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import space.vector.rr.ANTLRv4Parser.AltListContext;
@@ -36,12 +37,12 @@ import space.vector.rr.ANTLRv4Parser.TerminalContext;
 
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Railroad rule visitor to collect all rules from an ANTLR 4 grammar and
@@ -56,9 +57,34 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
     @Getter
     private final Map<String, Set<String>> rulesRelation;
     
+    @Getter
+    private final Map<String, Set<String>> literals;
+    
+    /**
+     * choices of plain terminals with more alternatives than this are drawn as a grid, 0 to disable.
+     */
+    @Setter
+    private int terminalGridThreshold;
+    
+    /**
+     * number of columns of the terminal grid.
+     */
+    @Setter
+    private int terminalGridColumns = 8;
+    
     public RailRoadRuleVisitor() {
-        this.rules = new LinkedHashMap<>();
-        this.rulesRelation = new HashMap<>();
+        this(new LinkedHashMap<>());
+    }
+    
+    /**
+     * create a visitor writing the rule diagrams straight into the given map.
+     *
+     * @param rules target of the rule diagrams
+     */
+    public RailRoadRuleVisitor(Map<String, String> rules) {
+        this.rules = rules;
+        this.rulesRelation = new LinkedHashMap<>();
+        this.literals = new LinkedHashMap<>();
     }
     
     @Override
@@ -76,8 +102,12 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
     
     @Override
     public String visitRuleAltList(RuleAltListContext ctx) {
-        StringBuilder builder = new StringBuilder("Choice(0, ");
         List<LabeledAltContext> alternatives = ctx.labeledAlt();
+        List<AlternativeContext> plainAlternatives = alternatives.stream().map(LabeledAltContext::alternative).collect(Collectors.toList());
+        if (isTerminalGrid(plainAlternatives)) {
+            return this.terminalGrid(plainAlternatives);
+        }
+        StringBuilder builder = new StringBuilder("Choice(0, ");
         for (int i = 0; i < alternatives.size(); i++) {
             LabeledAltContext alternative = alternatives.get(i);
             builder.append(this.visitLabeledAlt(alternative)).append(comma(alternatives, i));
@@ -182,8 +212,11 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
     
     @Override
     public String visitAltList(AltListContext ctx) {
-        StringBuilder builder = new StringBuilder("Choice(0, ");
         List<AlternativeContext> alternatives = ctx.alternative();
+        if (isTerminalGrid(alternatives)) {
+            return this.terminalGrid(alternatives);
+        }
+        StringBuilder builder = new StringBuilder("Choice(0, ");
         for (int i = 0; i < alternatives.size(); i++) {
             AlternativeContext alternative = alternatives.get(i);
             builder.append(this.visitAlternative(alternative)).append(comma(alternatives, i));
@@ -361,7 +394,7 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
                     if (rulesRelation.containsKey(ruleName)) {
                         rulesRelation.get(ruleName).add(text);
                     } else {
-                        Set<String> temp = new HashSet<>();
+                        Set<String> temp = new LinkedHashSet<>();
                         temp.add(text);
                         rulesRelation.put(ruleName, temp);
                     }
@@ -371,7 +404,7 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
                     if (rulesRelation.containsKey(ruleName)) {
                         rulesRelation.get(ruleName).add(text);
                     } else {
-                        Set<String> temp = new HashSet<>();
+                        Set<String> temp = new LinkedHashSet<>();
                         temp.add(text);
                         rulesRelation.put(ruleName, temp);
                     }
@@ -381,10 +414,42 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
             }
             return this.visitTerminal(ctx.TOKEN_REF());
         } else {
+            buildLiteral(ctx);
             return this.visitTerminal(ctx.STRING_LITERAL());
         }
     }
     
+    private boolean isTerminalGrid(List<AlternativeContext> alternatives) {
+        if (terminalGridThreshold <= 0 || alternatives.size() <= terminalGridThreshold) {
+            return false;
+        }
+        for (AlternativeContext alternative : alternatives) {
+            if (plainTerminal(alternative) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private TerminalContext plainTerminal(AlternativeContext alternative) {
+        if (alternative.elements() == null || alternative.elements().element().size() != 1) {
+            return null;
+        }
+        ElementContext element = alternative.elements().element(0);
+        if (element.ebnfSuffix() != null || element.atom() == null) {
+            return null;
+        }
+        return element.atom().terminal();
+    }
+    
+    private String terminalGrid(List<AlternativeContext> alternatives) {
+        StringBuilder builder = new StringBuilder("TerminalGrid(" + terminalGridColumns + ", ");
+        for (int i = 0; i < alternatives.size(); i++) {
+            builder.append(this.visitTerminal(plainTerminal(alternatives.get(i)))).append(comma(alternatives, i));
+        }
+        return builder.append(")").toString();
+    }
+    
     private String escapeTerminal(TerminalNode node) {
         String text = node.getText();
         String escaped = text.replace("\\u", "\\\\u");
@@ -421,7 +486,7 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
                 if (rulesRelation.containsKey(ruleName)) {
                     rulesRelation.get(ruleName).add(ctx.RULE_REF().getText());
                 } else {
-                    Set<String> temp = new HashSet<>();
+                    Set<String> temp = new LinkedHashSet<>();
                     temp.add(ctx.RULE_REF().getText());
                     rulesRelation.put(ruleName, temp);
                 }
@@ -439,7 +504,7 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
                 if (rulesRelation.containsKey(ruleName)) {
                     rulesRelation.get(ruleName).add(ctx.RULE_REF().getText());
                 } else {
-                    Set<String> temp = new HashSet<>();
+                    Set<String> temp = new LinkedHashSet<>();
                     temp.add(ctx.RULE_REF().getText());
                     rulesRelation.put(ruleName, temp);
                 }
@@ -448,4 +513,21 @@ public class RailRoadRuleVisitor extends ANTLRv4ParserBaseVisitor<String> {
             context = context.getParent();
         }
     }
+    
+    private void buildLiteral(TerminalContext ctx) {
+        ParserRuleContext context = ctx.getParent();
+        while (null != context) {
+            String ruleName = null;
+            if (context instanceof ParserRuleSpecContext) {
+                ruleName = ((ParserRuleSpecContext) context).RULE_REF().getText();
+            } else if (context instanceof LexerRuleContext) {
+                ruleName = ((LexerRuleContext) context).TOKEN_REF().getText();
+            }
+            if (null != ruleName) {
+                literals.computeIfAbsent(ruleName, key -> new LinkedHashSet<>()).add(ctx.STRING_LITERAL().getText());
+                break;
+            }
+            context = context.getParent();
+        }
+    }
 }
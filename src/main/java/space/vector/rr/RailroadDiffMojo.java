@@ -0,0 +1,146 @@
+package space.vector.rr;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
+import org.codehaus.plexus.compiler.util.scan.SimpleSourceInclusionScanner;
+import org.codehaus.plexus.compiler.util.scan.SourceInclusionScanner;
+import org.codehaus.plexus.compiler.util.scan.mapping.SuffixMapping;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Railroad maven plug-in to render only the rules changed between two versions of a grammar, side by side
+ *
+ */
+@Slf4j
+@Getter
+@Setter
+@Mojo(name = "rr-diff", requiresProject = false)
+public class RailroadDiffMojo extends AbstractMojo {
+    
+    /**
+     * A set of Ant-like inclusion patterns used to select the grammar files of both directories.
+     * By default, the pattern <code>**&#47;*.g4</code> is used.
+     */
+    @Parameter
+    protected Set<String> includes = new HashSet<>();
+    
+    /**
+     * A set of Ant-like exclusion patterns used to prevent certain files from being compared.
+     */
+    @Parameter
+    protected Set<String> excludes = new HashSet<>();
+    
+    /**
+     * The directory of the base version of the grammar files ({@code *.g4}).
+     */
+    @Parameter(property = "rr.baseDirectory", required = true)
+    private File baseDirectory;
+    
+    /**
+     * The directory of the new version of the grammar files ({@code *.g4}).
+     */
+    @Parameter(property = "rr.headDirectory", defaultValue = "${basedir}/src/main/antlr4", required = true)
+    private File headDirectory;
+    
+    /**
+     * Specify output directory where the diff file is generated.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/rr")
+    private File outputDirectory;
+    
+    /**
+     * Specify the name of the diff file.
+     */
+    @Parameter(defaultValue = "diff.html")
+    private String outputName;
+    
+    /**
+     * Choices of plain terminals, like keyword lists, with more alternatives than this are drawn as a
+     * compact grid instead of one branch per alternative. 0 disables the grid.
+     */
+    @Parameter(defaultValue = "100")
+    private int terminalGridThreshold;
+    
+    /**
+     * Number of columns of the terminal grid.
+     */
+    @Parameter(defaultValue = "8")
+    private int terminalGridColumns;
+    
+    /**
+     * Max number of script statements evaluated to render the diagram of a rule, 0 for no limit.
+     */
+    @Parameter(defaultValue = "10000000")
+    private long ruleStatementLimit;
+    
+    /**
+     * Max wall clock seconds to render the diagram of a rule, 0 for no limit.
+     */
+    @Parameter(defaultValue = "60")
+    private long ruleTimeout;
+    
+    @Override
+    public void execute() {
+        if (!baseDirectory.isDirectory() || !headDirectory.isDirectory()) {
+            throw new RailroadGeneratorException("RR: " + baseDirectory + " and " + headDirectory + " must be grammar directories.");
+        }
+        
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
+        
+        RailroadGenerator base = new RailroadGenerator();
+        RailroadGenerator head = new RailroadGenerator();
+        for (RailroadGenerator generator : new RailroadGenerator[]{base, head}) {
+            generator.setTerminalGridThreshold(terminalGridThreshold);
+            generator.setTerminalGridColumns(terminalGridColumns);
+        }
+        try {
+            for (File grammar : getGrammarFiles(baseDirectory)) {
+                base.parse(grammar);
+            }
+            for (File grammar : getGrammarFiles(headDirectory)) {
+                head.parse(grammar);
+            }
+            GrammarDiff diff = new GrammarDiff(base, head);
+            if (!diff.createHtml(outputDirectory.getAbsolutePath(), outputName, ruleStatementLimit,
+                    ruleTimeout > 0 ? Duration.ofSeconds(ruleTimeout) : null)) {
+                throw new RailroadGeneratorException("write railroad diagram diff " + new File(outputDirectory, outputName) + " fail.");
+            }
+            log.info("RR: {}", diff.summary());
+            logLimitedRules("base", base);
+            logLimitedRules("head", head);
+        } catch (InclusionScanException | IOException e) {
+            throw new RailroadGeneratorException("generate railroad diagram diff fail.", e);
+        } finally {
+            base.close();
+            head.close();
+        }
+    }
+    
+    private static void logLimitedRules(String version, RailroadGenerator generator) {
+        if (!generator.getLimitedRules().isEmpty()) {
+            log.warn("RR: {} {} rules exceed the render limits and are rendered as a placeholder:", generator.getLimitedRules().size(), version);
+            generator.getLimitedRules().forEach((rule, limit) -> log.warn("RR:   {} ({})", rule, limit));
+        }
+    }
+    
+    private Set<File> getGrammarFiles(File directory) throws InclusionScanException {
+        Set<String> patterns = includes == null || includes.isEmpty() ? Collections.singleton("**/*.g4") : includes;
+        SourceInclusionScanner scan = new SimpleSourceInclusionScanner(patterns, excludes);
+        scan.addSourceMapping(new SuffixMapping("g4", Collections.<String>emptySet()));
+        return new TreeSet<>(scan.getIncludedSources(directory, null));
+    }
+}
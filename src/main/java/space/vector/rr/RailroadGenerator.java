@@ -1,30 +1,49 @@
-
-
 package space.vector.rr;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,29 +54,109 @@ import java.util.regex.Pattern;
 @Slf4j
 public class RailroadGenerator {
     
-    private static final ScriptEngineManager MANAGER = new ScriptEngineManager();
-    private static final ScriptEngine ENGINE = MANAGER.getEngineByName("graal.js");
-    private static final String RAILROAD_SCRIPT = inputAsString(RailroadGenerator.class.getResourceAsStream("/railroad-diagram.js"));
-    private static final String RAILROAD_CSS = inputAsString(RailroadGenerator.class.getResourceAsStream("/railroad-diagram.css"));
     private static final String HTML_TEMPLATE = inputAsString(RailroadGenerator.class.getResourceAsStream("/template.html"));
+    private static final String SEARCH = inputAsString(RailroadGenerator.class.getResourceAsStream("/search.html"));
+    private static final String CLIENT_RENDER = inputAsString(RailroadGenerator.class.getResourceAsStream("/client-render.html"));
     private static final Pattern TEXT_PATTERN = Pattern.compile("(<text\\s+[^>]*?>\\s*(.+?)\\s*</text>)|[\\s\\S]");
-    
-    static {
-        try {
-            ENGINE.eval(RAILROAD_SCRIPT);
-        } catch (ScriptException e) {
-            log.error("could not evaluate script:\n{}", RAILROAD_SCRIPT);
-            System.exit(1);
+    private static final BaseErrorListener SYNTAX_ERROR_LOGGER = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+            log.warn("{} line {}:{} {}", recognizer.getInputStream().getSourceName(), line, charPositionInLine, msg);
         }
-    }
+    };
+    
     private Map<String, String> rules;
     private Map<String, Set<String>> rulesRelation;
     private Map<String, String> comments;
+    private Map<String, Set<String>> literals;
+    private final boolean lowMemory;
+    private final ComplexityReport complexity;
+    
+    /**
+     * the search index is written next to the page with {@link #createSearchIndex(String, String)}, so the page
+     * shows the search box and loads the index.
+     */
+    @Setter
+    private boolean searchIndex;
+    
+    /**
+     * analyse the static complexity of the parser rules for {@link #createComplexityReport(String, String)},
+     * must be set before parsing. The analysis is skipped when neither the report nor badges are requested.
+     */
+    @Setter
+    private boolean complexityReport;
+    
+    /**
+     * number of worst rules of the complexity report flagged with a badge in the html page, must be set before parsing.
+     */
+    @Setter
+    private int complexityBadges;
+    
+    /**
+     * runtime parser profile used to colour the diagrams by prediction cost.
+     */
+    @Setter
+    private ParserProfile profile;
+    
+    /**
+     * choices of plain terminals with more alternatives than this are drawn as a grid, 0 to disable.
+     */
+    @Setter
+    private int terminalGridThreshold;
+    
+    /**
+     * number of columns of the terminal grid.
+     */
+    @Setter
+    private int terminalGridColumns = 8;
+    
+    /**
+     * order of the rules in the page, source order or breadth first from the root rule when not set.
+     */
+    @Setter
+    private RuleOrder ruleOrder;
+    
+    /**
+     * pre-rendered svg, or the json diagram model rendered in the browser.
+     */
+    @Setter
+    private OutputMode outputMode = OutputMode.SVG;
+    
+    /**
+     * max number of script statements evaluated per rule, 0 for no limit.
+     */
+    @Setter
+    private long ruleStatementLimit;
+    
+    /**
+     * max wall clock time per rule, null for no limit.
+     */
+    @Setter
+    private Duration ruleTimeout;
+    
+    /**
+     * rules rendered as a placeholder because they exceed the render limits, with the limit they exceed.
+     */
+    @Getter
+    private final Map<String, String> limitedRules = new LinkedHashMap<>();
     
     public RailroadGenerator() {
-        this.rules = new HashMap<>();
-        this.comments = new HashMap<>();
-        this.rulesRelation = new HashMap<>();
+        this(false);
+    }
+    
+    /**
+     * create a railroad generator.
+     *
+     * @param lowMemory keep rule definitions and comments in a temporary disk store instead of the heap,
+     *                  and drop the parser caches after each grammar file.
+     */
+    public RailroadGenerator(boolean lowMemory) {
+        this.lowMemory = lowMemory;
+        this.rules = lowMemory ? new DiskBackedMap("rr-rules") : new LinkedHashMap<>();
+        this.comments = lowMemory ? new DiskBackedMap("rr-comments") : new LinkedHashMap<>();
+        this.rulesRelation = new LinkedHashMap<>();
+        this.literals = new LinkedHashMap<>();
+        this.complexity = new ComplexityReport();
     }
     
     /**
@@ -67,84 +166,311 @@ public class RailroadGenerator {
      * @throws IOException
      */
     public void parse(File grammarFile) throws IOException {
-        
-        InputStream input = new FileInputStream(grammarFile);
-        
-        ANTLRv4Lexer lexer = new ANTLRv4Lexer(new ANTLRInputStream(new BufferedInputStream(input)));
+        // read as is, splitting lines would turn U+0085, U+2028 and U+2029 inside literals into line feeds
+        parse(new String(Files.readAllBytes(grammarFile.toPath()), StandardCharsets.UTF_8), grammarFile.getPath());
+    }
+    
+    /**
+     * parse the antlr4 grammar text and get all the rules and rules relations.
+     *
+     * @param grammar    grammar text
+     * @param sourceName name of the grammar source, for error reporting
+     */
+    public void parse(String grammar, String sourceName) {
+        parse(grammar, sourceName, () -> false);
+    }
+    
+    /**
+     * parse the antlr4 grammar text, giving up as soon as the deadline expires.
+     *
+     * @param grammar    grammar text
+     * @param sourceName name of the grammar source, for error reporting
+     * @param expired    checked on every parser rule entered and between the parsing steps
+     * @throws RailroadGeneratorException if the deadline expires
+     */
+    void parse(String grammar, String sourceName, BooleanSupplier expired) {
+        ANTLRv4Lexer lexer = new ANTLRv4Lexer(CharStreams.fromString(grammar, sourceName));
         ANTLRv4Parser parser = new ANTLRv4Parser(new CommonTokenStream(lexer));
-        
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(SYNTAX_ERROR_LOGGER);
+        parser.removeErrorListeners();
+        parser.addErrorListener(SYNTAX_ERROR_LOGGER);
+        parser.addParseListener(new DeadlineListener(sourceName, expired));
         ParseTree tree = parser.grammarSpec();
-        RailRoadRuleVisitor visitor = new RailRoadRuleVisitor();
+        RailRoadRuleVisitor visitor = new RailRoadRuleVisitor(this.rules);
+        visitor.setTerminalGridThreshold(terminalGridThreshold);
+        visitor.setTerminalGridColumns(terminalGridColumns);
         visitor.visit(tree);
+        checkDeadline(sourceName, expired);
+        if (complexityReport || complexityBadges > 0) {
+            ComplexityVisitor complexityVisitor = new ComplexityVisitor();
+            complexityVisitor.visit(tree);
+            this.complexity.addAll(complexityVisitor.getRules());
+        }
+        if (lowMemory) {
+            lexer.getInterpreter().clearDFA();
+            parser.getInterpreter().clearDFA();
+        }
         
-        this.rules.putAll(visitor.getRules());
-        this.comments.putAll(CommentsParser.commentsMap(inputAsString(new FileInputStream(grammarFile))));
+        this.comments.putAll(CommentsParser.commentsMap(grammar));
         this.rulesRelation.putAll(visitor.getRulesRelation());
+        this.literals.putAll(visitor.getLiterals());
     }
     
-    private String getSVG(String ruleName) {
-        try {
-            CharSequence dsl = rules.get(ruleName);
-            if (dsl == null) {
-                return "";
-            }
-            String svg = (String) ENGINE.eval(dsl.toString());
-            svg = svg.replaceFirst("<svg ", "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" ");
-            svg = svg.replaceFirst("<g ", "<style type=\"text/css\">" + RAILROAD_CSS + "</style>\n<g ");
-            return svg;
-        } catch (ScriptException e) {
-            log.error("get svg of rule {} fail", ruleName);
-            throw new RuntimeException(e);
+    private static void checkDeadline(String sourceName, BooleanSupplier expired) {
+        if (expired.getAsBoolean()) {
+            throw new RailroadGeneratorException("parsing " + sourceName + " exceeds its deadline.");
         }
     }
     
-    private String getHtml(String fileName, String rootRule) {
-        StringBuilder rows = new StringBuilder();
+    /**
+     * parse listener aborting the parsing of a grammar once its deadline expires.
+     */
+    private static final class DeadlineListener implements ParseTreeListener {
+        
+        private final String sourceName;
+        private final BooleanSupplier expired;
+        
+        DeadlineListener(String sourceName, BooleanSupplier expired) {
+            this.sourceName = sourceName;
+            this.expired = expired;
+        }
+        
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            checkDeadline(sourceName, expired);
+        }
         
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {
+        }
+        
+        @Override
+        public void visitTerminal(TerminalNode node) {
+        }
+        
+        @Override
+        public void visitErrorNode(ErrorNode node) {
+        }
+    }
+    
+    /**
+     * release the temporary disk store used by the low memory mode.
+     */
+    public void close() {
+        if (this.rules instanceof DiskBackedMap) {
+            ((DiskBackedMap) this.rules).close();
+        }
+        if (this.comments instanceof DiskBackedMap) {
+            ((DiskBackedMap) this.comments).close();
+        }
+    }
+    
+    int ruleCount() {
+        return this.rules.size();
+    }
+    
+    Map<String, Set<String>> getRulesRelation() {
+        return this.rulesRelation;
+    }
+    
+    /**
+     * names of all the rules, in grammar source order.
+     */
+    Set<String> ruleNames() {
+        return this.rules.keySet();
+    }
+    
+    /**
+     * diagram DSL of the rule, the structure of its definition regardless of formatting, labels and actions.
+     */
+    String ruleDefinition(String ruleName) {
+        return this.rules.get(ruleName);
+    }
+    
+    /**
+     * render the rules one at a time in page order, so only a single diagram is held in memory.
+     *
+     * @param anchorPrefix prefix of the anchors the links to other rules point to
+     * @param rootRule     root rule, null for all the rules
+     * @param renderer     diagram renderer
+     * @param consumer     receives each rendered rule
+     */
+    void renderRules(String anchorPrefix, String rootRule, DiagramRenderer renderer, Consumer<RenderedRule> consumer) {
         for (String ruleName : iterateRules(rootRule)) {
-            String svg = this.getSVG(ruleName);
-            String ruleDescription = comments.get(ruleName);
-            
-            rows.append("<tr><td id=\"").append(fileName).append("_").append(ruleName).append("\"><h4>").append(ruleName).append("</h4></td><td>").append(svg).append("</td></tr>");
-            if (ruleDescription != null) {
-                rows.append("<tr class=\"border-notop\"><td></td><td>" + ruleDescription.replaceAll("\n", "<br>") + "</td></tr>");
+            consumer.accept(renderRule(anchorPrefix, ruleName, renderer));
+        }
+    }
+    
+    /**
+     * render a single rule, a rule exceeding the render limits is rendered as a placeholder.
+     */
+    RenderedRule renderRule(String anchorPrefix, String ruleName, DiagramRenderer renderer) {
+        return renderRule(anchorPrefix, ruleName, renderer, this.rules::containsKey);
+    }
+    
+    /**
+     * render a single rule, linking only the referenced rules accepted by {@code linked}.
+     */
+    RenderedRule renderRule(String anchorPrefix, String ruleName, DiagramRenderer renderer, Predicate<String> linked) {
+        String dsl = rules.get(ruleName);
+        String svg;
+        try {
+            svg = dsl == null ? "" : addLinks(anchorPrefix, renderer.render(ruleName, dsl), linked);
+        } catch (RenderLimitException e) {
+            limitedRules.put(ruleName, e.getLimit());
+            svg = DiagramRenderer.placeholder("diagram skipped, exceeds the " + e.getLimit());
+        }
+        return new RenderedRule(ruleName, svg, comments.get(ruleName));
+    }
+    
+    private void writeHtml(Writer out, String fileName, String rootRule) throws IOException {
+        String scripts = outputMode == OutputMode.CLIENT
+                ? CLIENT_RENDER.replace("${model}", sidecarName(fileName, ".rules.js")).replace("${anchorPrefix}", fileName) : "";
+        String search = searchIndex ? SEARCH.replace("${index}", indexName(fileName)) : "";
+        String template = HTML_TEMPLATE.replace("${search}", search).replace("${scripts}", scripts);
+        int rowsAt = template.indexOf("${rows}");
+        out.write(template.substring(0, rowsAt));
+        Set<String> badges = new HashSet<>();
+        this.complexity.worst(complexityBadges).forEach(rule -> badges.add(rule.getName()));
+        
+        if (outputMode == OutputMode.CLIENT) {
+            for (String ruleName : iterateRules(rootRule)) {
+                out.write(getRow(fileName, ruleName, null, comments.get(ruleName), badges));
+            }
+        } else {
+            try (DiagramRenderer renderer = new DiagramRenderer(ruleStatementLimit, ruleTimeout)) {
+                renderRules(fileName, rootRule, renderer, rule -> {
+                    try {
+                        out.write(getRow(fileName, rule.getName(), rule.getSvg(), rule.getDescription(), badges));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
         }
         
-        final String template = HTML_TEMPLATE.replace("${rows}", rows);
-        return addLinks(fileName, template);
+        out.write(template.substring(rowsAt + "${rows}".length()));
+    }
+    
+    /**
+     * write the json diagram model of every rule, wrapped in a script the page loads even from the file system,
+     * and the diagram script and css used to render it in the browser.
+     */
+    private void writeClientModel(String dir, String fileName) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir + "/" + sidecarName(fileName, ".rules.js"))), StandardCharsets.UTF_8))) {
+            out.write("rrDiagramModels({");
+            boolean first = true;
+            for (Map.Entry<String, String> rule : this.rules.entrySet()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                out.write(JsonWriter.toJson(rule.getKey()));
+                out.write(':');
+                out.write(DiagramModel.toJson(rule.getValue()));
+            }
+            out.write("});\n");
+        }
+        for (String resource : new String[]{"railroad-diagram.js", "railroad-diagram.css"}) {
+            try (InputStream input = RailroadGenerator.class.getResourceAsStream("/" + resource)) {
+                Files.copy(input, new File(dir, resource).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+    
+    /**
+     * build the table row of a rule.
+     *
+     * @param svg rendered diagram, null for a placeholder rendered in the browser
+     */
+    private String getRow(String fileName, String ruleName, String svg, String ruleDescription, Set<String> badges) {
+        StringBuilder row = new StringBuilder();
+        ParserProfile.RuleProfile ruleProfile = profile == null ? null : profile.get(ruleName);
+        String background = ruleProfile == null ? null : heatColor(profile.heat(ruleName));
+        String diagram;
+        if (svg == null) {
+            diagram = "<div class=\"rr-diagram\" data-rule=\"" + ruleName + "\""
+                    + (background == null ? "" : " data-background=\"" + background + "\"") + " style=\"min-height: 60px\"></div>";
+        } else {
+            diagram = background == null ? svg : svg.replaceFirst("<svg ", "<svg style=\"background-color: " + background + "\" ");
+        }
+        
+        row.append("<tr><td id=\"").append(fileName).append("_").append(ruleName).append("\"><h4>").append(ruleName);
+        if (badges.contains(ruleName)) {
+            RuleComplexity ruleComplexity = this.complexity.get(ruleName);
+            row.append(" <span class=\"rr-badge\" title=\"").append(ruleComplexity.summary()).append("\">")
+                    .append(ruleComplexity.getScore()).append("</span>");
+        }
+        row.append("</h4></td><td>").append(diagram).append("</td></tr>");
+        if (ruleProfile != null) {
+            row.append("<tr class=\"border-notop\"><td></td><td class=\"rr-profile\">").append(ruleProfile.summary()).append("</td></tr>");
+        }
+        if (ruleDescription != null) {
+            row.append("<tr class=\"border-notop\"><td></td><td>" + ruleDescription.replaceAll("\n", "<br>") + "</td></tr>");
+        }
+        return row.toString();
+    }
+    
+    /**
+     * green for cold rules through yellow to red for the hottest rule.
+     */
+    private static String heatColor(double heat) {
+        return String.format(Locale.ROOT, "hsl(%d,80%%,%d%%)", Math.round(120 * (1 - heat)), Math.round(90 - 25 * heat));
     }
     
     private Collection<String> iterateRules(String rootRule) {
+        RuleOrder order = null != ruleOrder ? ruleOrder : (null == rootRule ? RuleOrder.SOURCE : RuleOrder.BFS);
         if (null == rootRule) {
-            return this.rules.keySet();
-        } else {
-            return iterateRulesBroadcast(rootRule);
+            if (order == RuleOrder.BFS) {
+                return iterateRulesBroadcast(this.rules.keySet());
+            }
+            return order == RuleOrder.ALPHABETICAL ? new TreeSet<>(this.rules.keySet()) : this.rules.keySet();
+        }
+        Collection<String> rules = iterateRulesBroadcast(Collections.singletonList(rootRule));
+        switch (order) {
+            case ALPHABETICAL:
+                return new TreeSet<>(rules);
+            case SOURCE:
+                Set<String> reachable = new LinkedHashSet<>(rules);
+                Collection<String> ordered = new ArrayList<>(reachable.size());
+                for (String ruleName : this.rules.keySet()) {
+                    if (reachable.remove(ruleName)) {
+                        ordered.add(ruleName);
+                    }
+                }
+                ordered.addAll(reachable);
+                return ordered;
+            default:
+                return rules;
         }
     }
     
-    private Collection<String> iterateRulesBroadcast(String rootRule) {
+    private Collection<String> iterateRulesBroadcast(Collection<String> rootRules) {
         Collection<String> rules = new ArrayList<>(this.rules.size());
         Collection<String> rulesProcessed = new HashSet<>(this.rules.size());
-        rules.add(rootRule);
-        rulesProcessed.add(rootRule);
-        
         Queue<String> ruleQueue = new LinkedList<>();
-        ruleQueue.addAll(this.rulesRelation.get(rootRule));
-        rulesProcessed.addAll(this.rulesRelation.get(rootRule));
         
-        while (!ruleQueue.isEmpty()) {
-            String rule = ruleQueue.poll();
-            rules.add(rule);
-            Collection<String> childRules = this.rulesRelation.get(rule);
-            if (null != childRules && !childRules.isEmpty()) {
-                childRules.forEach(
-                        childRule -> {
-                            if (!rulesProcessed.contains(childRule)) {
-                                rulesProcessed.add(childRule);
-                                ruleQueue.add(childRule);
-                            }
-                        });
+        for (String rootRule : rootRules) {
+            if (!rulesProcessed.add(rootRule)) {
+                continue;
+            }
+            ruleQueue.add(rootRule);
+            while (!ruleQueue.isEmpty()) {
+                String rule = ruleQueue.poll();
+                rules.add(rule);
+                Collection<String> childRules = this.rulesRelation.get(rule);
+                if (null != childRules && !childRules.isEmpty()) {
+                    childRules.forEach(
+                            childRule -> {
+                                if (!rulesProcessed.contains(childRule)) {
+                                    rulesProcessed.add(childRule);
+                                    ruleQueue.add(childRule);
+                                }
+                            });
+                }
             }
         }
         return rules;
@@ -161,24 +487,105 @@ public class RailroadGenerator {
      * @return`true` iff the creation of the html page was successful.
      */
     public boolean createHtml(String dir, String fileName, String rootRule) {
-        String html = this.getHtml(fileName, rootRule);
-        PrintWriter out = null;
-        
-        try {
-            out = new PrintWriter(new File(dir + "/" + fileName));
-            out.write(html);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir + "/" + fileName)), StandardCharsets.UTF_8))) {
+            writeHtml(out, fileName, rootRule);
+            if (outputMode == OutputMode.CLIENT) {
+                writeClientModel(dir, fileName);
+            }
             return true;
         } catch (IOException e) {
             log.error("create html fail,Exception:{}", e.getMessage());
             return false;
-        } finally {
-            if (out != null) {
-                out.close();
-            }
         }
     }
     
-    private String addLinks(String fileName, String template) {
+    /**
+     * Creates a search index next to the html page, mapping rule names, referenced tokens and
+     * literal keywords to the rules they appear in, plus the reverse "used by" relation of every rule.
+     * The json index is wrapped in a script loaded by the page, which also works for pages opened from the file system.
+     *
+     * @param dir
+     *          output dir
+     * @param fileName
+     *          file name of the html page the index belongs to
+     *
+     * @return`true` iff the creation of the index was successful.
+     */
+    public boolean createSearchIndex(String dir, String fileName) {
+        try (PrintWriter out = new PrintWriter(new File(dir + "/" + indexName(fileName)), "UTF-8")) {
+            out.write("rrSearchIndex(");
+            out.write(JsonWriter.toJson(getSearchIndex(fileName)));
+            out.write(");\n");
+            return true;
+        } catch (IOException e) {
+            log.error("create search index fail,Exception:{}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Creates a json report of the static complexity of every parser rule, worst rules first.
+     *
+     * @param dir
+     *          output dir
+     * @param fileName
+     *          file name of the html page the report belongs to
+     *
+     * @return`true` iff the creation of the report was successful.
+     */
+    public boolean createComplexityReport(String dir, String fileName) {
+        if (!complexityReport) {
+            log.warn("complexity report is not enabled, call setComplexityReport(true) before parsing.");
+            return false;
+        }
+        try (PrintWriter out = new PrintWriter(new File(dir + "/" + sidecarName(fileName, ".complexity.json")), "UTF-8")) {
+            out.write(this.complexity.toJson());
+            return true;
+        } catch (IOException e) {
+            log.error("create complexity report fail,Exception:{}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private Map<String, Object> getSearchIndex(String fileName) {
+        Map<String, String> anchors = new TreeMap<>();
+        for (String ruleName : this.rules.keySet()) {
+            anchors.put(ruleName, fileName + "_" + ruleName);
+        }
+        Map<String, Set<String>> usedBy = new TreeMap<>();
+        Map<String, Set<String>> tokens = new TreeMap<>();
+        this.rulesRelation.forEach((ruleName, children) -> {
+            for (String child : children) {
+                usedBy.computeIfAbsent(child, key -> new TreeSet<>()).add(ruleName);
+                if (Character.isUpperCase(child.charAt(0))) {
+                    tokens.computeIfAbsent(child, key -> new TreeSet<>()).add(ruleName);
+                }
+            }
+        });
+        Map<String, Set<String>> keywords = new TreeMap<>();
+        this.literals.forEach((ruleName, texts) -> {
+            for (String text : texts) {
+                keywords.computeIfAbsent(text, key -> new TreeSet<>()).add(ruleName);
+            }
+        });
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("rules", anchors);
+        index.put("tokens", tokens);
+        index.put("literals", keywords);
+        index.put("usedBy", usedBy);
+        return index;
+    }
+    
+    private static String indexName(String fileName) {
+        return sidecarName(fileName, ".index.js");
+    }
+    
+    private static String sidecarName(String fileName, String suffix) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName) + suffix;
+    }
+    
+    private static String addLinks(String fileName, CharSequence template, Predicate<String> linked) {
         StringBuilder builder = new StringBuilder();
         Matcher m = TEXT_PATTERN.matcher(template);
         while (m.find()) {
@@ -187,7 +594,7 @@ public class RailroadGenerator {
             } else {
                 String textTag = m.group(1);
                 String rule = m.group(2);
-                if (!this.rules.containsKey(rule)) {
+                if (!linked.test(rule)) {
                     builder.append(textTag);
                 } else {
                     builder.append("<a xlink:href=\"").append("#").append(fileName).append("_").append(rule).append("\">").append(textTag).append("</a>");
@@ -197,7 +604,10 @@ public class RailroadGenerator {
         return builder.toString();
     }
     
-    private static String inputAsString(InputStream input) {
+    /**
+     * read a classpath resource, line breaks normalized. Not for grammars, see {@link #parse(File)}.
+     */
+    static String inputAsString(InputStream input) {
         final StringBuilder builder = new StringBuilder();
         final Scanner scan = new Scanner(input);
         
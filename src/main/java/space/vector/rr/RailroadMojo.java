@@ -15,9 +15,11 @@ import org.codehaus.plexus.compiler.util.scan.mapping.SuffixMapping;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Railroad maven plug-in to generate railroad diagram
@@ -77,6 +79,82 @@ public class RailroadMojo extends AbstractMojo {
     @Parameter
     private String rootRule;
     
+    /**
+     * Generate a json search index next to the html page, used by the page to look up rules,
+     * tokens and keywords without scanning the diagrams.
+     */
+    @Parameter(defaultValue = "true")
+    private boolean searchIndex;
+    
+    /**
+     * Keep rule definitions and comments in a temporary disk store and render the page rule by rule,
+     * so the heap stays flat for very large grammars.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean lowMemory;
+    
+    /**
+     * Generate a json report of the static complexity of every parser rule: alternatives, nesting depth,
+     * loops, left recursion cycles and alternatives sharing common prefixes.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean complexityReport;
+    
+    /**
+     * Number of worst rules of the complexity report flagged with a badge in the html page.
+     */
+    @Parameter(defaultValue = "10")
+    private int complexityBadges;
+    
+    /**
+     * Runtime parser profile (csv of ANTLR {@code DecisionInfo} per decision, see {@link ParserProfile}),
+     * used to colour the diagrams by prediction cost.
+     */
+    @Parameter
+    private File profileFile;
+    
+    /**
+     * Choices of plain terminals, like keyword lists, with more alternatives than this are drawn as a
+     * compact grid instead of one branch per alternative. 0 disables the grid.
+     */
+    @Parameter(defaultValue = "100")
+    private int terminalGridThreshold;
+    
+    /**
+     * Number of columns of the terminal grid.
+     */
+    @Parameter(defaultValue = "8")
+    private int terminalGridColumns;
+    
+    /**
+     * Order of the rules in the page: {@code SOURCE}, {@code ALPHABETICAL} or {@code BFS}. Defaults to
+     * breadth first from {@code rootRule} when it is set, grammar source order otherwise.
+     */
+    @Parameter
+    private RuleOrder ruleOrder;
+    
+    /**
+     * {@code SVG} to pre-render the diagrams as inline svg, {@code CLIENT} to only write the json diagram model
+     * ({@code <name>.rules.js}) and the diagram script, the diagrams being rendered in the browser as they
+     * scroll into view.
+     */
+    @Parameter(defaultValue = "SVG")
+    private OutputMode outputMode;
+    
+    /**
+     * Max number of script statements evaluated to render the diagram of a rule, 0 for no limit.
+     * Rules exceeding it are rendered as a placeholder and listed at the end of the build.
+     */
+    @Parameter(defaultValue = "10000000")
+    private long ruleStatementLimit;
+    
+    /**
+     * Max wall clock seconds to render the diagram of a rule, 0 for no limit.
+     * Rules exceeding it are rendered as a placeholder and listed at the end of the build.
+     */
+    @Parameter(defaultValue = "60")
+    private long ruleTimeout;
+    
     @Override
     public void execute() {
         if (log.isDebugEnabled()) {
@@ -99,13 +177,26 @@ public class RailroadMojo extends AbstractMojo {
             outputDirectory.mkdirs();
         }
         
-        RailroadGenerator railroadGenerator = new RailroadGenerator();
+        RailroadGenerator railroadGenerator = new RailroadGenerator(lowMemory);
+        railroadGenerator.setSearchIndex(searchIndex);
+        railroadGenerator.setComplexityReport(complexityReport);
+        railroadGenerator.setComplexityBadges(complexityReport ? complexityBadges : 0);
+        railroadGenerator.setTerminalGridThreshold(terminalGridThreshold);
+        railroadGenerator.setTerminalGridColumns(terminalGridColumns);
+        railroadGenerator.setRuleOrder(ruleOrder);
+        railroadGenerator.setOutputMode(outputMode);
+        railroadGenerator.setRuleStatementLimit(ruleStatementLimit);
+        railroadGenerator.setRuleTimeout(ruleTimeout > 0 ? Duration.ofSeconds(ruleTimeout) : null);
         try {
-            Set<File> grammarFiles = getGrammarFiles();
+            if (profileFile != null) {
+                railroadGenerator.setProfile(ParserProfile.read(profileFile));
+            }
+            // sorted, the include scan returns the files in file system order
+            Set<File> grammarFiles = new TreeSet<>(getGrammarFiles());
             for (File grammar : grammarFiles) {
                 railroadGenerator.parse(grammar);
             }
-            for (File importGrammar : getImportFiles()) {
+            for (File importGrammar : new TreeSet<>(getImportFiles())) {
                 railroadGenerator.parse(importGrammar);
             }
             
@@ -114,11 +205,23 @@ public class RailroadMojo extends AbstractMojo {
                 outputName = outputName.substring(0, outputName.lastIndexOf(".")) + ".html";
             }
             railroadGenerator.createHtml(outputDirectory.getAbsolutePath(), outputName, rootRule);
+            if (searchIndex) {
+                railroadGenerator.createSearchIndex(outputDirectory.getAbsolutePath(), outputName);
+            }
+            if (complexityReport) {
+                railroadGenerator.createComplexityReport(outputDirectory.getAbsolutePath(), outputName);
+            }
+            if (!railroadGenerator.getLimitedRules().isEmpty()) {
+                log.warn("RR: {} rules exceed the render limits and are rendered as a placeholder:", railroadGenerator.getLimitedRules().size());
+                railroadGenerator.getLimitedRules().forEach((rule, limit) -> log.warn("RR:   {} ({})", rule, limit));
+            }
         } catch (InclusionScanException | IOException e) {
             throw new RailroadGeneratorException("generate railroad diagram fail.", e);
+        } finally {
+            railroadGenerator.close();
         }
     }
-    private Set<File> getImportFiles() throws InclusionScanException {
+    Set<File> getImportFiles() throws InclusionScanException {
         if (!libDirectory.exists()) {
             return Collections.emptySet();
         }
@@ -129,7 +232,7 @@ public class RailroadMojo extends AbstractMojo {
         return scan.getIncludedSources(libDirectory, null);
     }
     
-    private Set<File> getGrammarFiles() throws InclusionScanException {
+    Set<File> getGrammarFiles() throws InclusionScanException {
         SourceMapping mapping = new SuffixMapping("g4", Collections.<String>emptySet());
         Set<String> includes = getIncludesPatterns();
         excludes.add("imports/**");
@@ -0,0 +1,124 @@
+package space.vector.rr;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Embeddable railroad renderer, rendering grammars from memory without touching the file system.
+ * <p>
+ * A renderer is immutable and safe to call concurrently from many threads: every call parses the grammar
+ * into its own {@link RailroadGenerator} and evaluates the diagrams in its own {@link DiagramRenderer}.
+ * Every call is bounded by the limits of its {@link RenderOptions}: the grammar length and rule count
+ * are checked before rendering, the wall clock time while parsing and rendering, the output length while rendering.
+ * The static complexity analysis of the Maven goal is never run.
+ * </p>
+ */
+public class RailroadRenderer {
+    
+    private final RenderOptions options;
+    
+    public RailroadRenderer() {
+        this(RenderOptions.defaults());
+    }
+    
+    public RailroadRenderer(RenderOptions options) {
+        this.options = options;
+    }
+    
+    /**
+     * render the grammar text.
+     *
+     * @param grammar  grammar text
+     * @param consumer receives each rule as soon as it is rendered, on the calling thread
+     * @return rendered rules
+     * @throws RailroadGeneratorException if the grammar can not be rendered or a limit is exceeded
+     */
+    public RenderResult render(String grammar, Consumer<RenderedRule> consumer) {
+        return render(grammar, "grammar", consumer);
+    }
+    
+    public RenderResult render(String grammar) {
+        return render(grammar, rule -> {
+        });
+    }
+    
+    /**
+     * render the grammar file.
+     *
+     * @param grammarFile grammar file, read as UTF-8
+     * @param consumer    receives each rule as soon as it is rendered, on the calling thread
+     * @return rendered rules
+     * @throws IOException if the grammar file can not be read
+     * @throws RailroadGeneratorException if the grammar can not be rendered or a limit is exceeded
+     */
+    public RenderResult render(Path grammarFile, Consumer<RenderedRule> consumer) throws IOException {
+        if (Files.size(grammarFile) > 4L * options.getMaxGrammarLength()) {
+            throw new RailroadGeneratorException("grammar " + grammarFile + " exceeds " + options.getMaxGrammarLength() + " chars.");
+        }
+        return render(new String(Files.readAllBytes(grammarFile), StandardCharsets.UTF_8), grammarFile.toString(), consumer);
+    }
+    
+    private RenderResult render(String grammar, String sourceName, Consumer<RenderedRule> consumer) {
+        if (grammar.length() > options.getMaxGrammarLength()) {
+            throw new RailroadGeneratorException("grammar " + sourceName + " exceeds " + options.getMaxGrammarLength() + " chars.");
+        }
+        long deadline = System.nanoTime() + options.getTimeout().toNanos();
+        
+        RailroadGenerator generator = new RailroadGenerator();
+        generator.setTerminalGridThreshold(options.getTerminalGridThreshold());
+        generator.setTerminalGridColumns(options.getTerminalGridColumns());
+        generator.setRuleOrder(options.getRuleOrder());
+        generator.setRuleStatementLimit(options.getRuleStatementLimit());
+        generator.setRuleTimeout(options.getRuleTimeout());
+        try {
+            generator.parse(grammar, sourceName, () -> System.nanoTime() - deadline >= 0);
+        } catch (StackOverflowError e) {
+            throw new RailroadGeneratorException("grammar " + sourceName + " is nested too deep.");
+        } catch (RailroadGeneratorException e) {
+            throw timeout(sourceName, e);
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            throw timeout(sourceName, null);
+        }
+        if (generator.ruleCount() > options.getMaxRules()) {
+            throw new RailroadGeneratorException("grammar " + sourceName + " exceeds " + options.getMaxRules() + " rules.");
+        }
+        
+        List<RenderedRule> rules = new ArrayList<>();
+        long[] outputLength = {0};
+        DiagramRenderer renderer = new DiagramRenderer(options.getRuleStatementLimit(), options.getRuleTimeout());
+        ScheduledFuture<?> watchdog = DiagramRenderer.WATCHDOG.schedule(renderer::cancel, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        try {
+            generator.renderRules(options.getAnchorPrefix(), options.getRootRule(), renderer, rule -> {
+                outputLength[0] += rule.getSvg().length();
+                if (outputLength[0] > options.getMaxOutputLength()) {
+                    throw new RailroadGeneratorException("grammar " + sourceName + " exceeds " + options.getMaxOutputLength() + " chars of svg.");
+                }
+                rules.add(rule);
+                consumer.accept(rule);
+            });
+        } catch (RailroadGeneratorException e) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw timeout(sourceName, e);
+            }
+            throw e;
+        } catch (StackOverflowError e) {
+            throw new RailroadGeneratorException("grammar " + sourceName + " is nested too deep.");
+        } finally {
+            watchdog.cancel(false);
+            renderer.close();
+        }
+        return new RenderResult(rules, generator.getRulesRelation(), generator.getLimitedRules());
+    }
+    
+    private RailroadGeneratorException timeout(String sourceName, Throwable cause) {
+        return new RailroadGeneratorException("rendering " + sourceName + " exceeds " + options.getTimeout().toMillis() + " ms.", cause);
+    }
+}
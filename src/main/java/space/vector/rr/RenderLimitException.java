@@ -0,0 +1,21 @@
+package space.vector.rr;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the diagram of a rule exceeds the render limits.
+ *
+ */
+@Getter
+public class RenderLimitException extends RailroadGeneratorException {
+    
+    private final String ruleName;
+    
+    private final String limit;
+    
+    public RenderLimitException(String ruleName, String limit, Throwable cause) {
+        super("rule " + ruleName + " exceeds the " + limit + ".", cause);
+        this.ruleName = ruleName;
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,80 @@
+package space.vector.rr;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Options and resource limits of a single {@link RailroadRenderer} call.
+ *
+ */
+@Getter
+@Builder
+public class RenderOptions {
+    
+    /**
+     * root rule, only the rules reachable from it are rendered. null for all the rules.
+     */
+    private final String rootRule;
+    
+    /**
+     * order of the rendered rules, see {@link RailroadGenerator#setRuleOrder(RuleOrder)}.
+     */
+    private final RuleOrder ruleOrder;
+    
+    /**
+     * prefix of the anchors the links between rules point to, {@code #<anchorPrefix>_<rule>}.
+     */
+    @Builder.Default
+    private final String anchorPrefix = "rr";
+    
+    /**
+     * choices of plain terminals with more alternatives than this are drawn as a grid, 0 to disable.
+     */
+    @Builder.Default
+    private final int terminalGridThreshold = 100;
+    
+    @Builder.Default
+    private final int terminalGridColumns = 8;
+    
+    /**
+     * wall clock limit of the whole call.
+     */
+    @Builder.Default
+    private final Duration timeout = Duration.ofSeconds(30);
+    
+    /**
+     * max length of the grammar text, in chars.
+     */
+    @Builder.Default
+    private final int maxGrammarLength = 1 << 20;
+    
+    /**
+     * max number of rules in the grammar.
+     */
+    @Builder.Default
+    private final int maxRules = 10000;
+    
+    /**
+     * max total length of the rendered svg, in chars.
+     */
+    @Builder.Default
+    private final long maxOutputLength = 64L << 20;
+    
+    /**
+     * max number of script statements evaluated per rule, 0 for no limit. Rules exceeding it are rendered as a placeholder.
+     */
+    @Builder.Default
+    private final long ruleStatementLimit = 10000000;
+    
+    /**
+     * max wall clock time per rule, null for no limit. Rules exceeding it are rendered as a placeholder.
+     */
+    @Builder.Default
+    private final Duration ruleTimeout = Duration.ofSeconds(10);
+    
+    public static RenderOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,41 @@
+package space.vector.rr;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable result of a {@link RailroadRenderer} call.
+ *
+ */
+@Value
+public class RenderResult {
+    
+    /**
+     * rendered rules, in page order.
+     */
+    List<RenderedRule> rules;
+    
+    /**
+     * rules and tokens referenced by each rule.
+     */
+    Map<String, Set<String>> rulesRelation;
+    
+    /**
+     * rules rendered as a placeholder because they exceed the render limits, with the limit they exceed.
+     */
+    Map<String, String> limitedRules;
+    
+    RenderResult(List<RenderedRule> rules, Map<String, Set<String>> rulesRelation, Map<String, String> limitedRules) {
+        this.rules = ImmutableList.copyOf(rules);
+        ImmutableMap.Builder<String, Set<String>> relation = ImmutableMap.builder();
+        rulesRelation.forEach((ruleName, children) -> relation.put(ruleName, ImmutableSet.copyOf(children)));
+        this.rulesRelation = relation.build();
+        this.limitedRules = ImmutableMap.copyOf(limitedRules);
+    }
+}
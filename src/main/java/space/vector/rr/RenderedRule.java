@@ -0,0 +1,23 @@
+package space.vector.rr;
+
+import lombok.Value;
+
+/**
+ * Rendered diagram of a single grammar rule.
+ *
+ */
+@Value
+public class RenderedRule {
+    
+    String name;
+    
+    /**
+     * standalone svg, references to other rules of the grammar are links to {@code #<anchor prefix>_<rule>}.
+     */
+    String svg;
+    
+    /**
+     * description from the rule comment, null if the rule has none.
+     */
+    String description;
+}
@@ -0,0 +1,124 @@
+package space.vector.rr;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static complexity figures of a single parser rule, the shapes that make ANTLR adaptive prediction expensive.
+ *
+ */
+@Getter
+@Setter
+public class RuleComplexity {
+
+    private final String name;
+
+    /**
+     * number of top level alternatives.
+     */
+    private int alternatives;
+
+    /**
+     * number of prediction decisions: blocks with more than one alternative and ebnf suffixes.
+     */
+    private int decisions;
+
+    /**
+     * deepest nesting of sub-rule blocks.
+     */
+    private int maxDepth;
+
+    /**
+     * number of {@code *} and {@code +} loops.
+     */
+    private int closures;
+
+    /**
+     * number of atoms in the largest loop body.
+     */
+    private int maxClosureSize;
+
+    /**
+     * rules that may be referenced first in one of the alternatives.
+     */
+    private final Set<String> leftCorners = new LinkedHashSet<>();
+
+    /**
+     * rules of the left recursion cycle this rule belongs to, empty if none.
+     */
+    private List<String> leftRecursion = Collections.emptyList();
+
+    /**
+     * per leading element of a decision, the longest prefix shared by its alternatives and how many alternatives share it.
+     */
+    private final List<Map<String, Object>> commonPrefixes = new ArrayList<>();
+
+    private int score;
+
+    public RuleComplexity(String name) {
+        this.name = name;
+    }
+
+    void addCommonPrefix(List<String> prefix, int alternatives) {
+        Map<String, Object> commonPrefix = new LinkedHashMap<>();
+        commonPrefix.put("alternatives", alternatives);
+        commonPrefix.put("length", prefix.size());
+        commonPrefix.put("prefix", String.join(" ", prefix));
+        commonPrefixes.add(commonPrefix);
+    }
+
+    int longestCommonPrefix() {
+        int longest = 0;
+        for (Map<String, Object> commonPrefix : commonPrefixes) {
+            longest = Math.max(longest, (Integer) commonPrefix.get("length"));
+        }
+        return longest;
+    }
+
+    int commonPrefixAlternatives() {
+        int alternatives = 0;
+        for (Map<String, Object> commonPrefix : commonPrefixes) {
+            alternatives += (Integer) commonPrefix.get("alternatives");
+        }
+        return alternatives;
+    }
+
+    /**
+     * weighted sum used to rank the rules, the weights favour the shapes that cost the most lookahead.
+     */
+    void computeScore() {
+        this.score = alternatives + 2 * decisions + 3 * maxDepth + 2 * closures + maxClosureSize
+                + 2 * longestCommonPrefix() * commonPrefixAlternatives() + (leftRecursion.isEmpty() ? 0 : 10 * leftRecursion.size());
+    }
+
+    /**
+     * one line summary shown as tooltip of the badge in the html page.
+     */
+    String summary() {
+        return String.format("alternatives %d, decisions %d, depth %d, loops %d (largest %d), common prefixes %d%s",
+                alternatives, decisions, maxDepth, closures, maxClosureSize, commonPrefixes.size(),
+                leftRecursion.isEmpty() ? "" : ", left recursion " + String.join(" > ", leftRecursion));
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rule", name);
+        map.put("score", score);
+        map.put("alternatives", alternatives);
+        map.put("decisions", decisions);
+        map.put("maxDepth", maxDepth);
+        map.put("closures", closures);
+        map.put("maxClosureSize", maxClosureSize);
+        map.put("leftRecursion", leftRecursion);
+        map.put("commonPrefixes", commonPrefixes);
+        return map;
+    }
+}
@@ -0,0 +1,23 @@
+package space.vector.rr;
+
+/**
+ * Order of the rules in the generated page.
+ *
+ */
+public enum RuleOrder {
+    
+    /**
+     * order in which the rules are defined, grammar files in the order they are parsed.
+     */
+    SOURCE,
+    
+    /**
+     * rules sorted by name.
+     */
+    ALPHABETICAL,
+    
+    /**
+     * breadth first from the root rule, or from each rule in source order when there is no root rule.
+     */
+    BFS
+}
@@ -426,6 +426,41 @@ var temp = (function(options) {
         return this;
     }
 
+    function TerminalGrid(columns, items) {
+        if(!(this instanceof TerminalGrid)) return new TerminalGrid(columns, [].slice.call(arguments,1));
+        FakeSVG.call(this, 'g');
+        this.items = items.map(wrapString);
+        this.columns = Math.max(1, Math.min(columns, this.items.length));
+        this.rows = Math.ceil(this.items.length / this.columns);
+        this.cellWidth = this.items.reduce(function(sofar, el){return Math.max(sofar, el.width)},0);
+        this.width = this.columns * (this.cellWidth + Diagram.VERTICAL_SEPARATION) + Diagram.VERTICAL_SEPARATION;
+        var height = this.rows * (22 + Diagram.VERTICAL_SEPARATION) + Diagram.VERTICAL_SEPARATION;
+        this.up = Math.ceil(height / 2);
+        this.down = height - this.up;
+    }
+    subclassOf(TerminalGrid, FakeSVG);
+    TerminalGrid.prototype.needsSpace = true;
+    TerminalGrid.prototype.format = function(x, y, width) {
+        // Hook up the two sides if this is narrower than its stated width.
+        var gaps = determineGaps(width, this.width);
+        Path(x,y).h(gaps[0]).addTo(this);
+        Path(x+gaps[0]+this.width,y).h(gaps[1]).addTo(this);
+        x += gaps[0];
+
+        // One frame around all the alternatives, each drawn as a cell instead of a branch of its own.
+        FakeSVG('rect', {x:x, y:y-this.up, width:this.width, height:this.up+this.down, 'class':'grid'}).addTo(this);
+        for(var i = 0; i < this.items.length; i++) {
+            var item = this.items[i];
+            var cellX = x + Diagram.VERTICAL_SEPARATION + (i % this.columns) * (this.cellWidth + Diagram.VERTICAL_SEPARATION);
+            var cellY = y - this.up + Diagram.VERTICAL_SEPARATION + Math.floor(i / this.columns) * (22 + Diagram.VERTICAL_SEPARATION);
+            var attrs = {x:cellX, y:cellY, width:this.cellWidth, height:22};
+            if(item instanceof Terminal) { attrs.rx = 10; attrs.ry = 10; }
+            FakeSVG('rect', attrs).addTo(this);
+            FakeSVG('text', {x:cellX+this.cellWidth/2, y:cellY+15}, item.text).addTo(this);
+        }
+        return this;
+    }
+
     function Comment(text) {
         if(!(this instanceof Comment)) return new Comment(text);
         FakeSVG.call(this, 'g');
@@ -460,7 +495,7 @@ var temp = (function(options) {
         return this;
     }
 
-    return [Diagram, Sequence, Choice, Optional, OneOrMore, ZeroOrMore, Terminal, NonTerminal, Comment, Skip]
+    return [Diagram, Sequence, Choice, Optional, OneOrMore, ZeroOrMore, Terminal, NonTerminal, Comment, Skip, TerminalGrid]
 })(
     {
         VERTICAL_SEPARATION: 8,
@@ -475,7 +510,7 @@ var temp = (function(options) {
  These are the names that the internal classes are exported as.
  If you would like different names, adjust them here.
  */
-//['Diagram', 'Sequence', 'Choice', 'Optional', 'OneOrMore', 'ZeroOrMore', 'Terminal', 'NonTerminal', 'Comment', 'Skip']
+//['Diagram', 'Sequence', 'Choice', 'Optional', 'OneOrMore', 'ZeroOrMore', 'Terminal', 'NonTerminal', 'Comment', 'Skip', 'TerminalGrid']
 //    .forEach(function(e,i) { window[e] = temp[i]; });
 Diagram = temp[0];
 Sequence = temp[1];
@@ -487,3 +522,4 @@ Terminal = temp[6];
 NonTerminal = temp[7];
 Comment = temp[8];
 Skip = temp[9];
+TerminalGrid = temp[10];
@@ -0,0 +1,54 @@
+package space.vector.rr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Left recursion cycles of the complexity report, including the long rule chains of generated grammars.
+ *
+ */
+public class ComplexityReportTest {
+    
+    private static final int CHAIN = 20000;
+    
+    @Test
+    public void leftRecursionCycles() {
+        Map<String, RuleComplexity> rules = new LinkedHashMap<>();
+        rule(rules, "expr", "expr", "term");
+        rule(rules, "term", "factor");
+        rule(rules, "factor", "call", "atom");
+        rule(rules, "call", "factor");
+        rule(rules, "atom");
+        ComplexityReport report = new ComplexityReport();
+        report.addAll(rules);
+        assertEquals(Collections.singletonList("expr"), report.get("expr").getLeftRecursion());
+        assertEquals(Collections.emptyList(), report.get("term").getLeftRecursion());
+        assertEquals(Arrays.asList("factor", "call"), report.get("factor").getLeftRecursion());
+        assertEquals(Arrays.asList("factor", "call"), report.get("call").getLeftRecursion());
+        assertEquals(Collections.emptyList(), report.get("atom").getLeftRecursion());
+    }
+    
+    @Test
+    public void longChainOfRules() {
+        Map<String, RuleComplexity> rules = new LinkedHashMap<>();
+        for (int i = 0; i < CHAIN; i++) {
+            rule(rules, "rule" + i, "rule" + ((i + 1) % CHAIN));
+        }
+        ComplexityReport report = new ComplexityReport();
+        report.addAll(rules);
+        assertEquals(CHAIN, report.get("rule0").getLeftRecursion().size());
+        assertEquals("rule0", report.get("rule" + (CHAIN - 1)).getLeftRecursion().get(0));
+    }
+    
+    private static void rule(Map<String, RuleComplexity> rules, String name, String... leftCorners) {
+        RuleComplexity rule = new RuleComplexity(name);
+        rule.getLeftCorners().addAll(Arrays.asList(leftCorners));
+        rules.put(name, rule);
+    }
+}
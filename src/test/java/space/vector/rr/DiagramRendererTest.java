@@ -0,0 +1,47 @@
+package space.vector.rr;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Rules too expensive for the diagram script are reported as render limits, never as a failure of the whole grammar.
+ *
+ */
+public class DiagramRendererTest {
+    
+    private static final int NESTING = 300;
+    
+    @Test
+    public void deeplyNestedRuleExceedsTheStackDepth() {
+        StringBuilder dsl = new StringBuilder("Diagram(");
+        for (int i = 0; i < NESTING; i++) {
+            dsl.append("Choice(0, NonTerminal('ID'), ");
+        }
+        dsl.append("NonTerminal('ID')").append(String.join("", Collections.nCopies(NESTING, ")"))).append(").toString()");
+        try (DiagramRenderer renderer = new DiagramRenderer()) {
+            try {
+                renderer.render("nested", dsl.toString());
+                fail("rule nested " + NESTING + " levels deep should exceed the stack depth");
+            } catch (RenderLimitException e) {
+                assertEquals("nested", e.getRuleName());
+                assertEquals("stack depth", e.getLimit());
+            }
+            assertTrue(renderer.render("flat", "Diagram(NonTerminal('ID')).toString()").contains("<svg "));
+        }
+    }
+    
+    @Test
+    public void deeplyNestedRuleIsRenderedAsPlaceholder() {
+        String grammar = "grammar N;\nnested : " + String.join("", Collections.nCopies(NESTING, "(ID | "))
+                + "ID" + String.join("", Collections.nCopies(NESTING, ")")) + " ;\nflat : ID ;\nID : [a-z]+ ;\n";
+        RenderResult result = new RailroadRenderer(RenderOptions.builder().ruleStatementLimit(0).ruleTimeout(null).build()).render(grammar);
+        assertEquals(Collections.singletonMap("nested", "stack depth"), result.getLimitedRules());
+        assertEquals(3, result.getRules().size());
+        assertTrue(result.getRules().get(0).getSvg().contains("diagram skipped, exceeds the stack depth"));
+    }
+}
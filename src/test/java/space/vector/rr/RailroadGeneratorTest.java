@@ -0,0 +1,164 @@
+package space.vector.rr;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The generated output must be byte-reproducible: the page order is defined by the grammar, never by hashing
+ * or by the file system, and the low memory mode gives identical files.
+ *
+ */
+public class RailroadGeneratorTest {
+    
+    private static final String GRAMMAR = "grammar G;\n"
+            + "start : zeta alpha ;\n"
+            + "zeta : mid | ZED ;\n"
+            + "alpha : beta ;\n"
+            + "mid : 'm' ;\n"
+            + "beta : alpha? ZED ;\n"
+            + "unused : 'u' ;\n"
+            + "ZED : 'z' ;\n";
+    private static final Pattern ROW = Pattern.compile("<tr><td id=\"[^\"]+?\\.html_(\\w+)\">");
+    private static final File GRAMMAR_DIRECTORY = new File("src/main/antlr4/space/vector/rr");
+    private static final String OUTPUT_NAME = "ANTLRv4Parser.html";
+    private static final String[] OUTPUT_FILES = {OUTPUT_NAME, "ANTLRv4Parser.index.js", "ANTLRv4Parser.complexity.json"};
+    
+    @ClassRule
+    public static final TemporaryFolder TEMPORARY_FOLDER = new TemporaryFolder();
+    
+    @Test
+    public void rowsFollowSourceOrderByDefault() throws IOException {
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "beta", "unused", "ZED"), rows(null, null));
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "beta", "unused", "ZED"), rows(RuleOrder.SOURCE, null));
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "beta", "ZED"), rows(RuleOrder.SOURCE, "start"));
+    }
+    
+    @Test
+    public void rowsFollowAlphabeticalOrder() throws IOException {
+        assertEquals(Arrays.asList("ZED", "alpha", "beta", "mid", "start", "unused", "zeta"), rows(RuleOrder.ALPHABETICAL, null));
+        assertEquals(Arrays.asList("ZED", "alpha", "beta", "mid", "start", "zeta"), rows(RuleOrder.ALPHABETICAL, "start"));
+    }
+    
+    @Test
+    public void rowsFollowBreadthFirstOrder() throws IOException {
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "ZED", "beta"), rows(null, "start"));
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "ZED", "beta"), rows(RuleOrder.BFS, "start"));
+        assertEquals(Arrays.asList("start", "zeta", "alpha", "mid", "ZED", "beta", "unused"), rows(RuleOrder.BFS, null));
+    }
+    
+    @Test
+    public void grammarFilesAreParsedInSortedOrder() throws IOException {
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder();
+        File first = write(sourceDirectory, "A.g4", "grammar A;\nfirst : 'a' ;\nsecond : 'b' ;\n");
+        File last = write(sourceDirectory, "B.g4", "grammar B;\nthird : 'c' ;\n");
+        RailroadMojo mojo = new RailroadMojo() {
+            @Override
+            Set<File> getGrammarFiles() {
+                return new LinkedHashSet<>(Arrays.asList(last, first));
+            }
+        };
+        mojo.setSourceDirectory(sourceDirectory);
+        mojo.setLibDirectory(new File(sourceDirectory, "imports"));
+        mojo.setOutputDirectory(sourceDirectory);
+        mojo.setOutputName("index.html");
+        mojo.setOutputMode(OutputMode.CLIENT);
+        mojo.execute();
+        assertEquals(Arrays.asList("first", "second", "third"), rows(new File(sourceDirectory, "index.html")));
+    }
+    
+    @Test
+    public void lowMemoryGivesIdenticalBytes() throws IOException {
+        File expected = generate(false);
+        File actual = generate(true);
+        for (String file : OUTPUT_FILES) {
+            assertArrayEquals(file, Files.readAllBytes(new File(expected, file).toPath()), Files.readAllBytes(new File(actual, file).toPath()));
+        }
+    }
+    
+    @Test
+    public void pageLoadsTheSearchIndexOnlyWhenItIsWritten() throws IOException {
+        for (boolean searchIndex : new boolean[]{false, true}) {
+            File dir = TEMPORARY_FOLDER.newFolder();
+            RailroadGenerator generator = new RailroadGenerator();
+            generator.setSearchIndex(searchIndex);
+            generator.setOutputMode(OutputMode.CLIENT);
+            generator.parse(GRAMMAR, "G.g4");
+            assertTrue(generator.createHtml(dir.getAbsolutePath(), "G.html", null));
+            String page = new String(Files.readAllBytes(new File(dir, "G.html").toPath()), StandardCharsets.UTF_8);
+            assertEquals(searchIndex, page.contains("<script src=\"G.index.js\""));
+            assertEquals(searchIndex, page.contains("rr-search"));
+        }
+    }
+    
+    @Test
+    public void lineSeparatorsInLiteralsAreKept() throws IOException {
+        File grammar = write(TEMPORARY_FOLDER.newFolder(), "U.g4", "grammar U;\nr : 'a' | '\u0085' | '\u2028' ;\n");
+        RailroadGenerator generator = new RailroadGenerator();
+        generator.parse(grammar);
+        String definition = generator.ruleDefinition("r");
+        assertTrue(definition, definition.contains("\u0085") && definition.contains("\u2028"));
+    }
+    
+    /**
+     * rows of the page of the test grammar, the diagrams are left to the browser as only the order matters here.
+     */
+    private static List<String> rows(RuleOrder ruleOrder, String rootRule) throws IOException {
+        File dir = TEMPORARY_FOLDER.newFolder();
+        RailroadGenerator generator = new RailroadGenerator();
+        generator.setRuleOrder(ruleOrder);
+        generator.setOutputMode(OutputMode.CLIENT);
+        generator.parse(GRAMMAR, "G.g4");
+        assertTrue(generator.createHtml(dir.getAbsolutePath(), "G.html", rootRule));
+        return rows(new File(dir, "G.html"));
+    }
+    
+    private static List<String> rows(File page) throws IOException {
+        List<String> rows = new ArrayList<>();
+        Matcher matcher = ROW.matcher(new String(Files.readAllBytes(page.toPath()), StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            rows.add(matcher.group(1));
+        }
+        return rows;
+    }
+    
+    private static File write(File dir, String name, String text) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    private static File generate(boolean lowMemory) throws IOException {
+        File dir = TEMPORARY_FOLDER.newFolder();
+        RailroadGenerator generator = new RailroadGenerator(lowMemory);
+        try {
+            generator.setSearchIndex(true);
+            generator.setComplexityReport(true);
+            generator.setComplexityBadges(10);
+            generator.parse(new File(GRAMMAR_DIRECTORY, "ANTLRv4Parser.g4"));
+            generator.parse(new File(GRAMMAR_DIRECTORY, "ANTLRv4Lexer.g4"));
+            assertTrue(generator.createHtml(dir.getAbsolutePath(), OUTPUT_NAME, null));
+            assertTrue(generator.createSearchIndex(dir.getAbsolutePath(), OUTPUT_NAME));
+            assertTrue(generator.createComplexityReport(dir.getAbsolutePath(), OUTPUT_NAME));
+        } finally {
+            generator.close();
+        }
+        return dir;
+    }
+}